@@ -32,6 +32,8 @@ public class Database {
 	private String name;
 	/**	Database type	*/
 	private String type;
+	/**	Connection pool	*/
+	private Pool pool;
 	
 	/**
 	 * Default constructor
@@ -100,9 +102,16 @@ public class Database {
 		return type;
 	}
 
+	/**
+	 * @return the pool
+	 */
+	public final Pool getPool() {
+		return pool;
+	}
+
 	@Override
 	public String toString() {
 		return "Database [host=" + host + ", port=" + port + ", user=" + user + ", password=******, name="
-				+ name + ", type=" + type + "]";
+				+ name + ", type=" + type + ", pool=" + pool + "]";
 	}
 }
@@ -0,0 +1,99 @@
+/*************************************************************************************
+ * Product: ADempiere Bot                                                            *
+ * Copyright (C) 2012-2019 E.R.P. Consultores y Asociados, C.A.                      *
+ * Contributor(s): Yamel Senih ysenih@erpya.com                                      *
+ * This program is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by              *
+ * the Free Software Foundation, either version 3 of the License, or                 *
+ * (at your option) any later version.                                               *
+ * This program is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of                    *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                     *
+ * GNU General Public License for more details.                                      *
+ * You should have received a copy of the GNU General Public License                 *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.            *
+ ************************************************************************************/
+package org.spin.base.setup;
+
+import java.util.List;
+
+/**
+ * Definition of a lane for admission control: the calls of methods are executed with a limit
+ * of concurrency and a limited queue, a lane without methods is used for all other methods
+ */
+public class Lane {
+	/**	Name	*/
+	private String name;
+	/**	Maximum calls running	*/
+	private int max_concurrency;
+	/**	Maximum calls waiting	*/
+	private int max_queue;
+	/**	Seconds suggested to client for retry when lane is full	*/
+	private int retry_after;
+	/**	Methods: full method name (data.Store/GetProductPrice) or service name (data.Store)	*/
+	private List<String> methods;
+	
+	/**
+	 * Default constructor
+	 * @param name
+	 * @param max_concurrency
+	 * @param max_queue
+	 * @param retry_after
+	 * @param methods
+	 */
+	public Lane(String name, int max_concurrency, int max_queue, int retry_after, List<String> methods) {
+		this.name = name;
+		this.max_concurrency = max_concurrency;
+		this.max_queue = max_queue;
+		this.retry_after = retry_after;
+		this.methods = methods;
+	}
+	
+	/**
+	 * Default constructor without parameters
+	 */
+	public Lane() {
+		
+	}
+
+	/**
+	 * @return the name
+	 */
+	public final String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the max_concurrency
+	 */
+	public final int getMax_concurrency() {
+		return max_concurrency;
+	}
+
+	/**
+	 * @return the max_queue
+	 */
+	public final int getMax_queue() {
+		return max_queue;
+	}
+
+	/**
+	 * @return the retry_after
+	 */
+	public final int getRetry_after() {
+		return retry_after;
+	}
+
+	/**
+	 * @return the methods
+	 */
+	public final List<String> getMethods() {
+		return methods;
+	}
+
+	@Override
+	public String toString() {
+		return "Lane [name=" + name + ", max_concurrency=" + max_concurrency + ", max_queue=" + max_queue
+				+ ", retry_after=" + retry_after + ", methods=" + methods + "]";
+	}
+}
@@ -0,0 +1,119 @@
+/*************************************************************************************
+ * Product: ADempiere Bot                                                            *
+ * Copyright (C) 2012-2019 E.R.P. Consultores y Asociados, C.A.                      *
+ * Contributor(s): Yamel Senih ysenih@erpya.com                                      *
+ * This program is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by              *
+ * the Free Software Foundation, either version 3 of the License, or                 *
+ * (at your option) any later version.                                               *
+ * This program is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of                    *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                     *
+ * GNU General Public License for more details.                                      *
+ * You should have received a copy of the GNU General Public License                 *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.            *
+ ************************************************************************************/
+package org.spin.base.setup;
+
+/**
+ * Settings of JDBC connection pool, a value of 0 keep the default of ADempiere
+ */
+public class Pool {
+	/**	Minimum connections	*/
+	private int min_size;
+	/**	Maximum connections	*/
+	private int max_size;
+	/**	Milliseconds waiting for a connection	*/
+	private int acquisition_timeout;
+	/**	Prepared statements cached	*/
+	private int statement_cache_size;
+	/**	Seconds between validation of idle connections	*/
+	private int validation_interval;
+	/**	Milliseconds that a connection can be out of pool before log a leak	*/
+	private int leak_detection_threshold;
+	/**	Close the connections out of pool more than leak threshold, only c3p0 (it has not a leak detection without close)	*/
+	private boolean leak_reaping;
+	
+	/**
+	 * Default constructor
+	 * @param min_size
+	 * @param max_size
+	 * @param acquisition_timeout
+	 * @param statement_cache_size
+	 * @param validation_interval
+	 * @param leak_detection_threshold
+	 * @param leak_reaping
+	 */
+	public Pool(int min_size, int max_size, int acquisition_timeout, int statement_cache_size, int validation_interval, int leak_detection_threshold, boolean leak_reaping) {
+		this.min_size = min_size;
+		this.max_size = max_size;
+		this.acquisition_timeout = acquisition_timeout;
+		this.statement_cache_size = statement_cache_size;
+		this.validation_interval = validation_interval;
+		this.leak_detection_threshold = leak_detection_threshold;
+		this.leak_reaping = leak_reaping;
+	}
+	
+	/**
+	 * Default constructor without parameters
+	 */
+	public Pool() {
+		
+	}
+
+	/**
+	 * @return the min_size
+	 */
+	public final int getMin_size() {
+		return min_size;
+	}
+
+	/**
+	 * @return the max_size
+	 */
+	public final int getMax_size() {
+		return max_size;
+	}
+
+	/**
+	 * @return the acquisition_timeout
+	 */
+	public final int getAcquisition_timeout() {
+		return acquisition_timeout;
+	}
+
+	/**
+	 * @return the statement_cache_size
+	 */
+	public final int getStatement_cache_size() {
+		return statement_cache_size;
+	}
+
+	/**
+	 * @return the validation_interval
+	 */
+	public final int getValidation_interval() {
+		return validation_interval;
+	}
+
+	/**
+	 * @return the leak_detection_threshold
+	 */
+	public final int getLeak_detection_threshold() {
+		return leak_detection_threshold;
+	}
+
+	/**
+	 * @return the leak_reaping
+	 */
+	public final boolean isLeak_reaping() {
+		return leak_reaping;
+	}
+
+	@Override
+	public String toString() {
+		return "Pool [min_size=" + min_size + ", max_size=" + max_size + ", acquisition_timeout=" + acquisition_timeout
+				+ ", statement_cache_size=" + statement_cache_size + ", validation_interval=" + validation_interval
+				+ ", leak_detection_threshold=" + leak_detection_threshold + ", leak_reaping=" + leak_reaping + "]";
+	}
+}
@@ -0,0 +1,64 @@
+/*************************************************************************************
+ * Product: ADempiere Bot                                                            *
+ * Copyright (C) 2012-2019 E.R.P. Consultores y Asociados, C.A.                      *
+ * Contributor(s): Yamel Senih ysenih@erpya.com                                      *
+ * This program is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by              *
+ * the Free Software Foundation, either version 3 of the License, or                 *
+ * (at your option) any later version.                                               *
+ * This program is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of                    *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                     *
+ * GNU General Public License for more details.                                      *
+ * You should have received a copy of the GNU General Public License                 *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.            *
+ ************************************************************************************/
+package org.spin.base.setup;
+
+import java.util.List;
+
+/**
+ * Definition of a search index: table and columns used for search by contained text
+ */
+public class SearchIndex {
+	/**	Table Name	*/
+	private String table_name;
+	/**	Columns	*/
+	private List<String> columns;
+	
+	/**
+	 * Default constructor
+	 * @param table_name
+	 * @param columns
+	 */
+	public SearchIndex(String table_name, List<String> columns) {
+		this.table_name = table_name;
+		this.columns = columns;
+	}
+	
+	/**
+	 * Default constructor without parameters
+	 */
+	public SearchIndex() {
+		
+	}
+
+	/**
+	 * @return the table_name
+	 */
+	public final String getTable_name() {
+		return table_name;
+	}
+
+	/**
+	 * @return the columns
+	 */
+	public final List<String> getColumns() {
+		return columns;
+	}
+
+	@Override
+	public String toString() {
+		return "SearchIndex [table_name=" + table_name + ", columns=" + columns + "]";
+	}
+}
@@ -15,6 +15,8 @@
  ************************************************************************************/
 package org.spin.base.setup;
 
+import java.util.List;
+
 /**
  * Determinate all ADempiere client setup values for Human Resource
  * @author Yamel Senih
@@ -30,6 +32,22 @@ public class Server {
 	private String private_key_file;
 	/**	Trust Certificate	*/
 	private String trust_certificate_collection_file;
+	/**	Services hosted by unified server: access, business, dictionary, enrollment	*/
+	private List<String> services;
+	/**	Threads of Netty worker event loop, 0 for quantity of processors	*/
+	private int worker_threads;
+	/**	Threads of application executor, 0 for twice the quantity of processors	*/
+	private int executor_threads;
+	/**	Port of metrics endpoint, 0 for disable it	*/
+	private int metrics_port;
+	/**	Address of metrics endpoint, empty for loopback (the endpoint is not authenticated)	*/
+	private String metrics_host;
+	/**	Secret for sign page tokens, must be the same for all instances	*/
+	private String cursor_secret;
+	/**	Path of resources stored by a local file system handler, with variables {client_id}, {attachment_id}, {resource_uuid} and {file_name}	*/
+	private String resource_path;
+	/**	Maximum size of a uploaded resource (bytes), 0 for default	*/
+	private long max_upload_size;
 	/**
 	 * Default constructor
 	 * @param host
@@ -88,6 +106,62 @@ public class Server {
 		return trust_certificate_collection_file;
 	}
 
+	/**
+	 * @return the services
+	 */
+	public final List<String> getServices() {
+		return services;
+	}
+
+	/**
+	 * @return the worker_threads
+	 */
+	public final int getWorker_threads() {
+		return worker_threads;
+	}
+
+	/**
+	 * @return the executor_threads
+	 */
+	public final int getExecutor_threads() {
+		return executor_threads;
+	}
+
+	/**
+	 * @return the metrics_port
+	 */
+	public final int getMetrics_port() {
+		return metrics_port;
+	}
+
+	/**
+	 * @return the metrics_host
+	 */
+	public final String getMetrics_host() {
+		return metrics_host;
+	}
+
+	/**
+	 * @return the cursor_secret
+	 */
+	public final String getCursor_secret() {
+		return cursor_secret;
+	}
+
+	/**
+	 * @return the resource_path
+	 */
+	public final String getResource_path() {
+		return resource_path;
+	}
+
+	/**
+	 * @return the max_upload_size
+	 */
+	public final long getMax_upload_size() {
+		return max_upload_size;
+	}
+
 	/**
 	 * @return the isTlsEnabled
 	 */
@@ -100,6 +174,7 @@ public class Server {
 	public String toString() {
 		return "Server [host=" + host + ", port=" + port + ", certificate_chain_file=" + certificate_chain_file
 				+ ", private_key_file=" + private_key_file + ", trust_certificate_collection_file="
-				+ trust_certificate_collection_file + "]";
+				+ trust_certificate_collection_file + ", services=" + services + ", worker_threads=" + worker_threads
+				+ ", executor_threads=" + executor_threads + ", metrics_port=" + metrics_port + ", metrics_host=" + metrics_host + ", cursor_secret=" + (cursor_secret == null? null: "******") + ", resource_path=" + resource_path + ", max_upload_size=" + max_upload_size + "]";
 	}
 }
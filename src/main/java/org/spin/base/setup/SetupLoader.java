@@ -108,6 +108,22 @@ public class SetupLoader {
 	public final Server getServer() {
 		return setup.getServer();
 	}
+	
+	/**
+	 * @return
+	 * @see org.spin.base.setup.SetupWrapper#getSearch_index()
+	 */
+	public final List<SearchIndex> getSearch_index() {
+		return setup.getSearch_index();
+	}
+	
+	/**
+	 * @return
+	 * @see org.spin.base.setup.SetupWrapper#getLanes()
+	 */
+	public final List<Lane> getLanes() {
+		return setup.getLanes();
+	}
 
 	/**
 	 * Get current instance
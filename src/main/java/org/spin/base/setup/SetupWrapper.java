@@ -15,6 +15,8 @@
  ************************************************************************************/
 package org.spin.base.setup;
 
+import java.util.List;
+
 /**
  * Determinate all ADempiere client setup values for Human Resource
  * @author Yamel Senih
@@ -24,6 +26,10 @@ public class SetupWrapper {
 	private Server server;
 	/**	Database	*/
 	private Database database;
+	/**	Search Indexes	*/
+	private List<SearchIndex> search_index;
+	/**	Lanes of admission control	*/
+	private List<Lane> lanes;
 	
 	/**
 	 * Default constructor
@@ -56,8 +62,22 @@ public class SetupWrapper {
 		return server;
 	}
 
+	/**
+	 * @return the search_index
+	 */
+	public final List<SearchIndex> getSearch_index() {
+		return search_index;
+	}
+
+	/**
+	 * @return the lanes
+	 */
+	public final List<Lane> getLanes() {
+		return lanes;
+	}
+
 	@Override
 	public String toString() {
-		return "SetupWrapper [server=" + server + ", database=" + database + "]";
+		return "SetupWrapper [server=" + server + ", database=" + database + ", search_index=" + search_index + ", lanes=" + lanes + "]";
 	}
 }
@@ -22,6 +22,7 @@ import org.spin.base.setup.SetupLoader;
 
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptors;
 import io.grpc.netty.GrpcSslContexts;
 import io.grpc.netty.NettyServerBuilder;
 import io.netty.handler.ssl.ClientAuth;
@@ -46,15 +47,17 @@ public class AccessServer {
 	  }
 	  
 	  private void start() throws IOException {
+		  //	Context by call
+		  ContextInterceptor contextInterceptor = new ContextInterceptor();
 		  if(SetupLoader.getInstance().getServer().isTlsEnabled()) {
 			  server = NettyServerBuilder.forPort(SetupLoader.getInstance().getServer().getPort())
-		                .addService(new AccessServiceImplementation())
+		                .addService(ServerInterceptors.intercept(new AccessServiceImplementation(), contextInterceptor))
 		                .sslContext(getSslContextBuilder().build())
 		                .build()
 		                .start();
 		  } else {
 			  server = ServerBuilder.forPort(SetupLoader.getInstance().getServer().getPort())
-				        .addService(new AccessServiceImplementation())
+				        .addService(ServerInterceptors.intercept(new AccessServiceImplementation(), contextInterceptor))
 				        .build()
 				        .start();
 		  }
@@ -693,6 +693,7 @@ public class AccessServiceImplementation extends SecurityImplBase {
 		MSession session = getSessionFromUUid(request.getSessionUuid());
 		//	Logout
 		session.logout();
+		ContextManager.removeSession(request.getSessionUuid());
 		//	Session values
 		builder.setId(session.getAD_Session_ID());
 		builder.setUuid(ValueUtil.validateNull(session.getUUID()));
@@ -0,0 +1,387 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.grpc.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.compiere.util.CLogger;
+import org.compiere.util.Util;
+import org.spin.base.setup.Lane;
+
+import io.grpc.Context;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+/**
+ * Admission control by lanes (POS, interactive, reporting, batch...): each lane has a limit of
+ * running calls and of waiting calls, a call that arrive when lane is full is rejected with
+ * RESOURCE_EXHAUSTED and a retry-after trailer. A waiting call is started when other call of lane
+ * is completed or cancelled, then heavy methods can not use all threads of server.
+ * This interceptor must be added after {@link ContextInterceptor} (it is called before) for that the
+ * context of call is created when the call is admitted.
+ */
+public class AdmissionControlInterceptor implements ServerInterceptor {
+	
+	/**	Trailer with seconds for retry	*/
+	public static final Metadata.Key<String> RETRY_AFTER_KEY = Metadata.Key.of("retry-after", Metadata.ASCII_STRING_MARSHALLER);
+	/**	Lanes by full method name	*/
+	private final Map<String, LaneState> lanesByMethod = new HashMap<>();
+	/**	Lanes by service name	*/
+	private final Map<String, LaneState> lanesByService = new HashMap<>();
+	/**	Lane for all other methods	*/
+	private LaneState defaultLane;
+	/**	All lanes	*/
+	private final List<LaneState> lanes = new ArrayList<>();
+	/**	Logger			*/
+	private static CLogger log = CLogger.getCLogger(AdmissionControlInterceptor.class);
+	
+	/**
+	 * Create interceptor from setup
+	 * @param definitions
+	 */
+	public AdmissionControlInterceptor(List<Lane> definitions) {
+		if(definitions == null) {
+			return;
+		}
+		for(Lane definition : definitions) {
+			LaneState lane = new LaneState(definition);
+			lanes.add(lane);
+			if(definition.getMethods() == null
+					|| definition.getMethods().isEmpty()) {
+				defaultLane = lane;
+				continue;
+			}
+			for(String method : definition.getMethods()) {
+				if(method.indexOf('/') > 0) {
+					lanesByMethod.put(method, lane);
+				} else {
+					lanesByService.put(method, lane);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Verify if some lane is defined
+	 * @return
+	 */
+	public boolean isEnabled() {
+		return !lanes.isEmpty();
+	}
+	
+	/**
+	 * Get lanes for monitoring
+	 * @return
+	 */
+	public List<LaneState> getLanes() {
+		return lanes;
+	}
+	
+	/**
+	 * Get lane of method
+	 * @param fullMethodName
+	 * @return null if method is not limited
+	 */
+	private LaneState getLane(String fullMethodName) {
+		LaneState lane = lanesByMethod.get(fullMethodName);
+		if(lane != null) {
+			return lane;
+		}
+		int separatorIndex = fullMethodName.indexOf('/');
+		if(separatorIndex > 0) {
+			lane = lanesByService.get(fullMethodName.substring(0, separatorIndex));
+		}
+		return lane == null? defaultLane: lane;
+	}
+	
+	@Override
+	public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+		LaneState lane = getLane(call.getMethodDescriptor().getFullMethodName());
+		if(lane == null) {
+			return next.startCall(call, headers);
+		}
+		AdmittedListener<ReqT> listener = new AdmittedListener<ReqT>(lane, call, Context.current(), () -> next.startCall(call, headers));
+		if(!lane.admit(listener)) {
+			Metadata trailers = new Metadata();
+			trailers.put(RETRY_AFTER_KEY, String.valueOf(lane.retryAfter));
+			call.close(Status.RESOURCE_EXHAUSTED
+					.withDescription("Lane " + lane.name + " is full, retry after " + lane.retryAfter + " seconds"), trailers);
+			return new ServerCall.Listener<ReqT>() {};
+		}
+		return listener;
+	}
+	
+	/**
+	 * State of a lane
+	 */
+	public static class LaneState {
+		
+		/**
+		 * Default constructor
+		 * @param definition
+		 */
+		LaneState(Lane definition) {
+			name = Util.isEmpty(definition.getName())? "default": definition.getName();
+			maxConcurrency = Math.max(1, definition.getMax_concurrency());
+			maxQueue = Math.max(0, definition.getMax_queue());
+			retryAfter = Math.max(1, definition.getRetry_after());
+		}
+		
+		/**	Name	*/
+		private final String name;
+		/**	Maximum calls running	*/
+		private final int maxConcurrency;
+		/**	Maximum calls waiting	*/
+		private final int maxQueue;
+		/**	Seconds for retry	*/
+		private final int retryAfter;
+		/**	Calls running	*/
+		private int running = 0;
+		/**	Calls waiting	*/
+		private final ArrayDeque<AdmittedListener<?>> waiting = new ArrayDeque<>();
+		/**	Calls rejected	*/
+		private long rejected = 0;
+		
+		/**
+		 * Start the call or put it in queue
+		 * @param listener
+		 * @return false if lane is full
+		 */
+		boolean admit(AdmittedListener<?> listener) {
+			synchronized (this) {
+				if(running >= maxConcurrency) {
+					if(waiting.size() >= maxQueue) {
+						rejected++;
+						return false;
+					}
+					waiting.add(listener);
+					return true;
+				}
+				running++;
+			}
+			listener.start();
+			return true;
+		}
+		
+		/**
+		 * Release a place of running call and start the next waiting call
+		 */
+		void release() {
+			AdmittedListener<?> next;
+			synchronized (this) {
+				next = waiting.poll();
+				if(next == null) {
+					running--;
+					return;
+				}
+			}
+			next.start();
+		}
+		
+		/**
+		 * Remove a cancelled call from queue
+		 * @param listener
+		 * @return true if the call was waiting
+		 */
+		synchronized boolean remove(AdmittedListener<?> listener) {
+			return waiting.remove(listener);
+		}
+		
+		/**
+		 * @return the name
+		 */
+		public String getName() {
+			return name;
+		}
+		
+		/**
+		 * @return calls running
+		 */
+		public synchronized int getRunning() {
+			return running;
+		}
+		
+		/**
+		 * @return calls waiting
+		 */
+		public synchronized int getWaiting() {
+			return waiting.size();
+		}
+		
+		/**
+		 * @return calls rejected
+		 */
+		public synchronized long getRejected() {
+			return rejected;
+		}
+	}
+	
+	/**
+	 * Listener that keep the callbacks of call until the call is admitted
+	 */
+	private static class AdmittedListener<ReqT> extends ServerCall.Listener<ReqT> {
+		
+		/**
+		 * Default constructor
+		 * @param lane
+		 * @param call
+		 * @param context
+		 * @param starter
+		 */
+		AdmittedListener(LaneState lane, ServerCall<ReqT, ?> call, Context context, Supplier<ServerCall.Listener<ReqT>> starter) {
+			this.lane = lane;
+			this.call = call;
+			this.context = context;
+			this.starter = starter;
+		}
+		
+		/**	Lane	*/
+		private final LaneState lane;
+		/**	Call	*/
+		private final ServerCall<ReqT, ?> call;
+		/**	gRPC context of call	*/
+		private final Context context;
+		/**	Start of call	*/
+		private final Supplier<ServerCall.Listener<ReqT>> starter;
+		/**	Listener of started call	*/
+		private ServerCall.Listener<ReqT> delegate;
+		/**	Callbacks received before start	*/
+		private final List<Consumer<ServerCall.Listener<ReqT>>> pending = new ArrayList<>();
+		/**	Is finished (completed or cancelled)	*/
+		private boolean finished = false;
+		/**	Is released	*/
+		private boolean released = false;
+		
+		/**
+		 * Start call with the gRPC context of call and send the pending callbacks
+		 */
+		void start() {
+			boolean isRelease = false;
+			synchronized (this) {
+				if(finished) {
+					isRelease = markReleased();
+				} else {
+					try {
+						context.run(() -> {
+							delegate = starter.get();
+							pending.forEach(callback -> callback.accept(delegate));
+						});
+					} catch (RuntimeException e) {
+						log.severe(e.getLocalizedMessage());
+						finished = true;
+						isRelease = markReleased();
+						call.close(Status.fromThrowable(e), new Metadata());
+					} finally {
+						pending.clear();
+					}
+				}
+			}
+			if(isRelease) {
+				lane.release();
+			}
+		}
+		
+		/**
+		 * Mark place of lane as released, it is only released once
+		 * @return true if lane must be released
+		 */
+		private boolean markReleased() {
+			if(released) {
+				return false;
+			}
+			released = true;
+			return true;
+		}
+		
+		/**
+		 * Send callback to started call or keep it
+		 * @param callback
+		 */
+		private synchronized void dispatch(Consumer<ServerCall.Listener<ReqT>> callback) {
+			if(delegate == null) {
+				pending.add(callback);
+				return;
+			}
+			callback.accept(delegate);
+		}
+		
+		@Override
+		public void onMessage(ReqT message) {
+			dispatch(listener -> listener.onMessage(message));
+		}
+		
+		@Override
+		public void onHalfClose() {
+			dispatch(listener -> listener.onHalfClose());
+		}
+		
+		@Override
+		public void onReady() {
+			dispatch(listener -> listener.onReady());
+		}
+		
+		@Override
+		public void onCancel() {
+			boolean isRelease = false;
+			synchronized (this) {
+				finished = true;
+				if(delegate == null) {
+					//	Waiting: only remove from queue, a call taken from queue is released on start
+					if(lane.remove(this)) {
+						released = true;
+					}
+					return;
+				}
+				try {
+					delegate.onCancel();
+				} finally {
+					isRelease = markReleased();
+				}
+			}
+			if(isRelease) {
+				lane.release();
+			}
+		}
+		
+		@Override
+		public void onComplete() {
+			boolean isRelease = false;
+			synchronized (this) {
+				finished = true;
+				if(delegate == null) {
+					return;
+				}
+				try {
+					delegate.onComplete();
+				} finally {
+					isRelease = markReleased();
+				}
+			}
+			if(isRelease) {
+				lane.release();
+			}
+		}
+	}
+}
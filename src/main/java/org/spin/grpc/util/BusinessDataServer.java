@@ -22,6 +22,7 @@ import org.spin.base.setup.SetupLoader;
 
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptors;
 import io.grpc.netty.GrpcSslContexts;
 import io.grpc.netty.NettyServerBuilder;
 import io.netty.handler.ssl.ClientAuth;
@@ -46,41 +47,49 @@ public class BusinessDataServer {
 	  }
 	  
 	  private void start() throws IOException {
+		  //	Context by call
+		  ContextInterceptor contextInterceptor = new ContextInterceptor();
+		  //	Admission control by lanes
+		  AdmissionControlInterceptor admissionControlInterceptor = new AdmissionControlInterceptor(SetupLoader.getInstance().getLanes());
+		  //	Metrics of calls, it must be the last interceptor
+		  MetricsInterceptor metricsInterceptor = new MetricsInterceptor();
+		  MetricsEndpoint.registerServerGauges(admissionControlInterceptor);
+		  MetricsEndpoint.start(SetupLoader.getInstance().getServer().getMetrics_host(), SetupLoader.getInstance().getServer().getMetrics_port());
 		  if(SetupLoader.getInstance().getServer().isTlsEnabled()) {
 			  server = NettyServerBuilder.forPort(SetupLoader.getInstance().getServer().getPort())
 					  	//	Base Service
-				        .addService(new BusinessDataServiceImplementation())
+				        .addService(ServerInterceptors.intercept(new BusinessDataServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
 				        //	Core Functionality
-				        .addService(new CoreFunctionalityImplementation())
+				        .addService(ServerInterceptors.intercept(new CoreFunctionalityImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
 				        //	User Interface
-				        .addService(new UserInterfaceServiceImplementation())
+				        .addService(ServerInterceptors.intercept(new UserInterfaceServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
 				        //	Dashboarding
-				        .addService(new DashboardingServiceImplementation())
+				        .addService(ServerInterceptors.intercept(new DashboardingServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
 				        //	Workflow
-				        .addService(new WorkflowServiceImplementation())
+				        .addService(ServerInterceptors.intercept(new WorkflowServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
 				        //	Entity Log
-				        .addService(new EntityLogServiceImplementation())
+				        .addService(ServerInterceptors.intercept(new EntityLogServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
 				        //	POS
-				        .addService(new PointOfSalesServiceImplementation())
+				        .addService(ServerInterceptors.intercept(new PointOfSalesServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
 		                .sslContext(getSslContextBuilder().build())
 		                .build()
 		                .start();
 		  } else {
 			  server = ServerBuilder.forPort(SetupLoader.getInstance().getServer().getPort())
 					  	//	Base Service
-				        .addService(new BusinessDataServiceImplementation())
+				        .addService(ServerInterceptors.intercept(new BusinessDataServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
 				        //	Core Functionality
-				        .addService(new CoreFunctionalityImplementation())
+				        .addService(ServerInterceptors.intercept(new CoreFunctionalityImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
 				        //	User Interface
-				        .addService(new UserInterfaceServiceImplementation())
+				        .addService(ServerInterceptors.intercept(new UserInterfaceServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
 				        //	Dashboarding
-				        .addService(new DashboardingServiceImplementation())
+				        .addService(ServerInterceptors.intercept(new DashboardingServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
 				        //	Workflow
-				        .addService(new WorkflowServiceImplementation())
+				        .addService(ServerInterceptors.intercept(new WorkflowServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
 				        //	Entity Log
-				        .addService(new EntityLogServiceImplementation())
+				        .addService(ServerInterceptors.intercept(new EntityLogServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
 				        //	POS
-				        .addService(new PointOfSalesServiceImplementation())
+				        .addService(ServerInterceptors.intercept(new PointOfSalesServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
 				        .build()
 				        .start();
 		  }
@@ -130,6 +139,12 @@ public class BusinessDataServer {
 		  SetupLoader.loadSetup(setupFileName);
 		  //	Validate load
 		  SetupLoader.getInstance().validateLoad();
+		  //	Connection pool
+		  ConnectionPoolUtil.configure(SetupLoader.getInstance().getDatabase().getPool());
+		  //	Count SQL statements by call
+		  StatementMetrics.install();
+		  //	Search index for contained text
+		  TrigramIndex.getInstance().start(SetupLoader.getInstance().getSearch_index());
 		  final BusinessDataServer server = new BusinessDataServer();
 		  server.start();
 		  server.blockUntilShutdown();
@@ -20,12 +20,17 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.model.I_AD_Browse;
@@ -66,6 +71,8 @@ import org.spin.grpc.util.BusinessDataGrpc.BusinessDataImplBase;
 import com.google.protobuf.ByteString;
 
 import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 
 /**
@@ -78,6 +85,8 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 	private CLogger log = CLogger.getCLogger(BusinessDataServiceImplementation.class);
 	/**	Reference cache	*/
 	private static CCache<String, String> referenceWhereClauseCache = new CCache<String, String>("Reference_WhereClause", 30, 0);	//	no time-out
+	/**	Rows fetched by block for stream entities	*/
+	private static final int STREAM_FETCH_SIZE = 500;
 	@Override
 	public void getEntity(GetEntityRequest request, StreamObserver<Entity> responseObserver) {
 		try {
@@ -163,6 +172,11 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 		}
 	}
 	
+	@Override
+	public StreamObserver<EntityOperationRequest> applyEntityOperations(StreamObserver<ApplyEntityOperationsResponse> responseObserver) {
+		return new EntityOperationsObserver(responseObserver);
+	}
+	
 	@Override
 	public void listEntities(ListEntitiesRequest request, StreamObserver<ListEntitiesResponse> responseObserver) {
 		try {
@@ -173,6 +187,9 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 			ListEntitiesResponse.Builder entityValueList = convertEntitiesList(context, request);
 			responseObserver.onNext(entityValueList.build());
 			responseObserver.onCompleted();
+		} catch (StatusRuntimeException e) {
+			log.warning(e.getLocalizedMessage());
+			responseObserver.onError(e);
 		} catch (Exception e) {
 			log.severe(e.getLocalizedMessage());
 			responseObserver.onError(Status.INTERNAL
@@ -183,6 +200,26 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 		}
 	}
 	
+	@Override
+	public void streamEntities(ListEntitiesRequest request, StreamObserver<Entity> responseObserver) {
+		FlowControlledObserver<Entity> observer = new FlowControlledObserver<Entity>(responseObserver);
+		try {
+			if(request == null) {
+				throw new AdempiereException("Object Request Null");
+			}
+			Properties context = ContextManager.getContext(request.getClientRequest().getSessionUuid(), request.getClientRequest().getLanguage(), request.getClientRequest().getOrganizationUuid(), request.getClientRequest().getWarehouseUuid());
+			streamEntities(context, request, observer);
+			observer.onCompleted();
+		} catch (Exception e) {
+			log.severe(e.getLocalizedMessage());
+			observer.onError(Status.INTERNAL
+					.withDescription(e.getLocalizedMessage())
+					.augmentDescription(e.getLocalizedMessage())
+					.withCause(e)
+					.asRuntimeException());
+		}
+	}
+	
 	@Override
 	public void runBusinessProcess(RunBusinessProcessRequest request, StreamObserver<ProcessLog> responseObserver) {
 		try {
@@ -205,6 +242,163 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 		}
 	}
 	
+	@Override
+	public void submitBusinessProcess(RunBusinessProcessRequest request, StreamObserver<ProcessLog> responseObserver) {
+		try {
+			if(request == null
+					|| Util.isEmpty(request.getUuid())) {
+				throw new AdempiereException("Object Request Null");
+			}
+			Properties context = ContextManager.getContext(request.getClientRequest().getSessionUuid(), request.getClientRequest().getLanguage(), request.getClientRequest().getOrganizationUuid(), request.getClientRequest().getWarehouseUuid());
+			//	Copy of context for job thread
+			Properties jobContext = new Properties();
+			jobContext.putAll(context);
+			ProcessJobManager.Job job = ProcessJobManager.submit(request.getClientRequest().getSessionUuid(), beforeExecute -> runProcess(jobContext, request, beforeExecute));
+			responseObserver.onNext(getProcessJobLog(job, 0).build());
+			responseObserver.onCompleted();
+		} catch (StatusRuntimeException e) {
+			log.warning(e.getLocalizedMessage());
+			responseObserver.onError(e);
+		} catch (Exception e) {
+			log.severe(e.getLocalizedMessage());
+			responseObserver.onError(Status.INTERNAL
+					.withDescription(e.getLocalizedMessage())
+					.augmentDescription(e.getLocalizedMessage())
+					.withCause(e)
+					.asRuntimeException());
+		}
+	}
+	
+	@Override
+	public void getProcessJob(GetProcessJobRequest request, StreamObserver<ProcessLog> responseObserver) {
+		try {
+			if(request == null) {
+				throw new AdempiereException("Object Request Null");
+			}
+			ContextManager.getContext(request.getClientRequest().getSessionUuid(), request.getClientRequest().getLanguage(), request.getClientRequest().getOrganizationUuid(), request.getClientRequest().getWarehouseUuid());
+			ProcessJobManager.Job job = ProcessJobManager.getJob(request.getClientRequest().getSessionUuid(), request.getUuid());
+			responseObserver.onNext(getProcessJobLog(job, 0).build());
+			responseObserver.onCompleted();
+		} catch (Exception e) {
+			log.severe(e.getLocalizedMessage());
+			responseObserver.onError(Status.INTERNAL
+					.withDescription(e.getLocalizedMessage())
+					.augmentDescription(e.getLocalizedMessage())
+					.withCause(e)
+					.asRuntimeException());
+		}
+	}
+	
+	@Override
+	public void subscribeProcessJob(GetProcessJobRequest request, StreamObserver<ProcessLog> responseObserver) {
+		try {
+			if(request == null) {
+				throw new AdempiereException("Object Request Null");
+			}
+			ContextManager.getContext(request.getClientRequest().getSessionUuid(), request.getClientRequest().getLanguage(), request.getClientRequest().getOrganizationUuid(), request.getClientRequest().getWarehouseUuid());
+			ProcessJobManager.Job job = ProcessJobManager.getJob(request.getClientRequest().getSessionUuid(), request.getUuid());
+			//	Progress is pushed by job manager, the gRPC thread is released
+			new ProcessJobSubscription((ServerCallStreamObserver<ProcessLog>) responseObserver, job);
+		} catch (Exception e) {
+			log.severe(e.getLocalizedMessage());
+			responseObserver.onError(Status.INTERNAL
+					.withDescription(e.getLocalizedMessage())
+					.augmentDescription(e.getLocalizedMessage())
+					.withCause(e)
+					.asRuntimeException());
+		}
+	}
+	
+	/**
+	 * Subscription to progress of a process job: send the new logs on each notification
+	 * of job and the result when it is finished
+	 */
+	private class ProcessJobSubscription implements ProcessJobManager.JobListener {
+		
+		/**
+		 * Default constructor, the listener is added to job
+		 * @param responseObserver
+		 * @param job
+		 */
+		ProcessJobSubscription(ServerCallStreamObserver<ProcessLog> responseObserver, ProcessJobManager.Job job) {
+			this.responseObserver = responseObserver;
+			this.job = job;
+			responseObserver.setOnCancelHandler(this::close);
+			job.addListener(this);
+		}
+		
+		/**	Response	*/
+		private final ServerCallStreamObserver<ProcessLog> responseObserver;
+		/**	Job	*/
+		private final ProcessJobManager.Job job;
+		/**	Logs sent	*/
+		private int sentLogs = 0;
+		/**	Is Closed	*/
+		private boolean isClosed = false;
+		
+		@Override
+		public synchronized void onUpdate(ProcessJobManager.Job job) {
+			if(isClosed) {
+				return;
+			}
+			if(responseObserver.isCancelled()) {
+				close();
+				return;
+			}
+			if(job.isFinished()) {
+				close();
+				responseObserver.onNext(getProcessJobLog(job, 0).build());
+				responseObserver.onCompleted();
+				return;
+			}
+			//	Only new logs, a slow client get them on next notification
+			if(!responseObserver.isReady()) {
+				return;
+			}
+			ProcessLog.Builder progress = getProcessJobLog(job, sentLogs);
+			if(progress.getLogsCount() > 0) {
+				sentLogs += progress.getLogsCount();
+				responseObserver.onNext(progress.build());
+			}
+		}
+		
+		/**
+		 * Stop receive notifications of job
+		 */
+		private synchronized void close() {
+			isClosed = true;
+			job.removeListener(this);
+		}
+	}
+	
+	/**
+	 * Get state of process job: the result if it is finished else the logs of process
+	 * @param job
+	 * @param fromLog index of first log to add
+	 * @return
+	 */
+	private ProcessLog.Builder getProcessJobLog(ProcessJobManager.Job job, int fromLog) {
+		if(job.getResult() != null) {
+			return job.getResult().toBuilder();
+		}
+		ProcessLog.Builder builder = ProcessLog.newBuilder()
+				.setUuid(job.getUuid());
+		if(job.getError() != null) {
+			return builder.setIsError(true)
+					.setSummary(ValueUtil.validateNull(job.getError().getLocalizedMessage()));
+		}
+		builder.setIsProcessing(true);
+		ProcessInfo processInfo = job.getProcessInfo();
+		if(processInfo != null
+				&& processInfo.getLogs() != null) {
+			org.compiere.process.ProcessInfoLog[] logs = processInfo.getLogs();
+			for(int index = fromLog; index < logs.length; index++) {
+				builder.addLogs(convertProcessInfoLog(logs[index]));
+			}
+		}
+		return builder;
+	}
+	
 	/**
 	 * Run a process from request
 	 * @param context
@@ -213,6 +407,18 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 	 * @throws FileNotFoundException 
 	 */
 	private ProcessLog.Builder runProcess(Properties context, RunBusinessProcessRequest request) throws FileNotFoundException, IOException {
+		return runProcess(context, request, null);
+	}
+	
+	/**
+	 * Run a process from request
+	 * @param context
+	 * @param request
+	 * @param beforeExecute called with process info before execute, can be null
+	 * @throws IOException 
+	 * @throws FileNotFoundException 
+	 */
+	private ProcessLog.Builder runProcess(Properties context, RunBusinessProcessRequest request, Consumer<ProcessInfo> beforeExecute) throws FileNotFoundException, IOException {
 		ProcessLog.Builder response = ProcessLog.newBuilder();
 		//	Get Process definition
 		MProcess process = getProcess(context, request.getUuid());
@@ -293,6 +499,9 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 		}
 		//	Execute Process
 		ProcessInfo result = null;
+		if(beforeExecute != null) {
+			beforeExecute.accept(builder.getProcessInfo());
+		}
 		try {
 			result = builder.execute();
 		} catch (Exception e) {
@@ -382,12 +591,9 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 				output.setDescription(ValueUtil.validateNull(process.getDescription()));
 				//	Type
 				output.setReportType(request.getReportType());
-				ByteString resultFile = ByteString.readFrom(new FileInputStream(reportFile));
-				if(request.getReportType().endsWith("html")
-						|| request.getReportType().endsWith("txt")) {
-					output.setOutputBytes(resultFile);
+				try (FileInputStream inputStream = new FileInputStream(reportFile)) {
+					output.setOutputStream(ByteString.readFrom(inputStream));
 				}
-				output.setOutputStream(resultFile);
 				output.setReportViewUuid(ValueUtil.validateNull(reportViewUuid));
 				output.setPrintFormatUuid(ValueUtil.validateNull(printFormatUuid));
 				output.setTableName(ValueUtil.validateNull(tableName));
@@ -474,6 +680,11 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 				tableName = request.getCriteria().getTableName();
 			}
 		}
+		//	Only requested columns
+		Set<String> columns = getRequestedColumns(request.getColumnsList(), request.getCriteria().getColumnsList());
+		if(!columns.isEmpty()) {
+			return getEntity(tableName, request, columns);
+		}
 		PO entity = null;
 		if(!Util.isEmpty(request.getUuid())
 				|| request.getRecordId() != 0) {
@@ -487,6 +698,96 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 		return convertEntity(entity);
 	}
 	
+	/**
+	 * Get entity reading only requested columns
+	 * @param tableName
+	 * @param request
+	 * @param columns
+	 * @return
+	 */
+	private Entity.Builder getEntity(String tableName, GetEntityRequest request, Set<String> columns) {
+		MTable table = MTable.get(Env.getCtx(), tableName);
+		if(table == null
+				|| table.getAD_Table_ID() == 0) {
+			throw new AdempiereException("@AD_Table_ID@ @NotFound@");
+		}
+		String whereClause = null;
+		List<Object> parameters = new ArrayList<Object>();
+		if(!Util.isEmpty(request.getUuid())) {
+			whereClause = I_AD_Element.COLUMNNAME_UUID + " = ?";
+			parameters.add(request.getUuid());
+		} else if(request.getRecordId() > 0) {
+			whereClause = tableName + "_ID = ?";
+			parameters.add(request.getRecordId());
+		} else {
+			whereClause = ValueUtil.getWhereClauseFromCriteria(request.getCriteria(), parameters);
+		}
+		if(Util.isEmpty(whereClause)) {
+			throw new AdempiereException("@Record_ID@ @NotFound@");
+		}
+		String sql = PaginationUtil.getQueryWithLimit(getSelectClause(table, columns) + " WHERE " + whereClause, null, 1, 0);
+		ListEntitiesResponse.Builder entities = convertListEntitiesResult(table, sql, parameters);
+		if(entities.getRecordsCount() == 0) {
+			return Entity.newBuilder();
+		}
+		return entities.getRecordsBuilder(0);
+	}
+	
+	/**
+	 * Get requested columns from request and criteria
+	 * @param requestColumns
+	 * @param criteriaColumns
+	 * @return empty set for all columns
+	 */
+	private Set<String> getRequestedColumns(List<String> requestColumns, List<String> criteriaColumns) {
+		Set<String> columns = new LinkedHashSet<String>();
+		requestColumns.stream().filter(columnName -> !Util.isEmpty(columnName)).forEach(columnName -> columns.add(columnName.trim()));
+		criteriaColumns.stream().filter(columnName -> !Util.isEmpty(columnName)).forEach(columnName -> columns.add(columnName.trim()));
+		return columns;
+	}
+	
+	/**
+	 * Get select clause of table with requested columns, key and UUID columns are always selected
+	 * @param table
+	 * @param columns requested columns, empty for all
+	 * @return SELECT ... FROM TableName
+	 */
+	private String getSelectClause(MTable table, Set<String> columns) {
+		POInfo poInfo = POInfo.getPOInfo(Env.getCtx(), table.getAD_Table_ID());
+		List<Integer> columnIndexes = new ArrayList<Integer>();
+		if(columns == null
+				|| columns.isEmpty()) {
+			for(int index = 0; index < poInfo.getColumnCount(); index++) {
+				columnIndexes.add(index);
+			}
+		} else {
+			List<String> selectedColumns = new ArrayList<String>(Arrays.asList(table.getKeyColumns()));
+			selectedColumns.add(I_AD_Element.COLUMNNAME_UUID);
+			selectedColumns.addAll(columns);
+			for(String columnName : selectedColumns) {
+				int index = poInfo.getColumnIndex(columnName);
+				if(index < 0) {
+					//	Table without UUID
+					if(columnName.equals(I_AD_Element.COLUMNNAME_UUID)) {
+						continue;
+					}
+					throw new AdempiereException("@AD_Column_ID@ @NotFound@: " + columnName);
+				}
+				if(!columnIndexes.contains(index)) {
+					columnIndexes.add(index);
+				}
+			}
+		}
+		StringBuffer sql = new StringBuffer();
+		columnIndexes.forEach(index -> {
+			if(sql.length() > 0) {
+				sql.append(", ");
+			}
+			sql.append(poInfo.getColumnSQL(index));
+		});
+		return "SELECT " + sql + " FROM " + table.getTableName();
+	}
+	
 	/**
 	 * Delete a entity
 	 * @param context
@@ -495,16 +796,30 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 	 */
 	private Empty.Builder deleteEntity(Properties context, DeleteEntityRequest request) {
 		Trx.run(transactionName -> {
-			PO entity = RecordUtil.getEntity(context, request.getTableName(), request.getUuid(), request.getRecordId(), transactionName);
-			if(entity != null
-					&& entity.get_ID() >= 0) {
-				entity.deleteEx(true);
-			}
+			deleteEntity(context, request.getTableName(), request.getUuid(), request.getRecordId(), transactionName);
 		});
 		//	Return
 		return Empty.newBuilder();
 	}
 	
+	/**
+	 * Delete a entity inside a transaction
+	 * @param context
+	 * @param tableName
+	 * @param uuid
+	 * @param recordId
+	 * @param transactionName
+	 * @return deleted entity or null when it does not exist
+	 */
+	private PO deleteEntity(Properties context, String tableName, String uuid, int recordId, String transactionName) {
+		PO entity = RecordUtil.getEntity(context, tableName, uuid, recordId, transactionName);
+		if(entity != null
+				&& entity.get_ID() >= 0) {
+			entity.deleteEx(true);
+		}
+		return entity;
+	}
+	
 	/**
 	 * Create Entity
 	 * @param context
@@ -512,30 +827,32 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 	 * @return
 	 */
 	private Entity.Builder createEntity(Properties context, CreateEntityRequest request) {
-		if(Util.isEmpty(request.getTableName())) {
+		PO entity = createEntity(context, request.getTableName(), request.getAttributesList(), null);
+		//	Return
+		return convertEntity(entity);
+	}
+	
+	/**
+	 * Create Entity inside a transaction
+	 * @param context
+	 * @param tableName
+	 * @param attributes
+	 * @param transactionName
+	 * @return
+	 */
+	private PO createEntity(Properties context, String tableName, List<KeyValue> attributes, String transactionName) {
+		if(Util.isEmpty(tableName)) {
 			throw new AdempiereException("@AD_Table_ID@ @NotFound@");
 		}
-		String tableName = request.getTableName();
 		MTable table = MTable.get(context, tableName);
-		PO entity = table.getPO(0, null);
+		PO entity = table.getPO(0, transactionName);
 		if(entity == null) {
 			throw new AdempiereException("@Error@ PO is null");
 		}
-		request.getAttributesList().forEach(attribute -> {
-			int referenceId = getReferenceId(entity.get_Table_ID(), attribute.getKey());
-			Object value = null;
-			if(referenceId > 0) {
-				value = ValueUtil.getObjectFromReference(attribute.getValue(), referenceId);
-			} 
-			if(value == null) {
-				value = ValueUtil.getObjectFromValue(attribute.getValue());
-			}
-			entity.set_ValueOfColumn(attribute.getKey(), value);
-		});
+		setAttributes(entity, attributes);
 		//	Save entity
 		entity.saveEx();
-		//	Return
-		return convertEntity(entity);
+		return entity;
 	}
 	
 	/**
@@ -545,25 +862,49 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 	 * @return
 	 */
 	private Entity.Builder updateEntity(Properties context, UpdateEntityRequest request) {
-		PO entity = RecordUtil.getEntity(context, request.getTableName(), request.getUuid(), request.getRecordId(), null);
+		PO entity = updateEntity(context, request.getTableName(), request.getUuid(), request.getRecordId(), request.getAttributesList(), null);
+		//	Return
+		return convertEntity(entity);
+	}
+	
+	/**
+	 * Update Entity inside a transaction
+	 * @param context
+	 * @param tableName
+	 * @param uuid
+	 * @param recordId
+	 * @param attributes
+	 * @param transactionName
+	 * @return updated entity or null when it does not exist
+	 */
+	private PO updateEntity(Properties context, String tableName, String uuid, int recordId, List<KeyValue> attributes, String transactionName) {
+		PO entity = RecordUtil.getEntity(context, tableName, uuid, recordId, transactionName);
 		if(entity != null
 				&& entity.get_ID() >= 0) {
-			request.getAttributesList().forEach(attribute -> {
-				int referenceId = getReferenceId(entity.get_Table_ID(), attribute.getKey());
-				Object value = null;
-				if(referenceId > 0) {
-					value = ValueUtil.getObjectFromReference(attribute.getValue(), referenceId);
-				} 
-				if(value == null) {
-					value = ValueUtil.getObjectFromValue(attribute.getValue());
-				}
-				entity.set_ValueOfColumn(attribute.getKey(), value);
-			});
+			setAttributes(entity, attributes);
 			//	Save entity
 			entity.saveEx();
 		}
-		//	Return
-		return convertEntity(entity);
+		return entity;
+	}
+	
+	/**
+	 * Set attributes to entity, the value is converted from column reference
+	 * @param entity
+	 * @param attributes
+	 */
+	private void setAttributes(PO entity, List<KeyValue> attributes) {
+		attributes.forEach(attribute -> {
+			int referenceId = getReferenceId(entity.get_Table_ID(), attribute.getKey());
+			Object value = null;
+			if(referenceId > 0) {
+				value = ValueUtil.getObjectFromReference(attribute.getValue(), referenceId);
+			} 
+			if(value == null) {
+				value = ValueUtil.getObjectFromValue(attribute.getValue());
+			}
+			entity.set_ValueOfColumn(attribute.getKey(), value);
+		});
 	}
 	
 	/**
@@ -587,48 +928,68 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 	 */
 	private ListEntitiesResponse.Builder convertEntitiesList(Properties context, ListEntitiesRequest request) {
 		Criteria criteria = request.getCriteria();
-		StringBuffer whereClause = new StringBuffer();
 		List<Object> params = new ArrayList<>();
-		if(!Util.isEmpty(criteria.getWhereClause())) {
-			whereClause.append("(").append(criteria.getWhereClause()).append(")");
-		}
-		criteria.getValuesList().forEach(value -> params.add(ValueUtil.getObjectFromValue(value)));
-		//	For dynamic condition
-		String dynamicWhere = ValueUtil.getWhereClauseFromCriteria(criteria, params);
-		if(!Util.isEmpty(dynamicWhere)) {
-			if(whereClause.length() > 0) {
-				whereClause.append(" AND ");
-			}
-			//	Add
-			whereClause.append(dynamicWhere);
-		}
-		//	Add from reference
-		if(!Util.isEmpty(criteria.getReferenceUuid())) {
-			String referenceWhereClause = referenceWhereClauseCache.get(criteria.getReferenceUuid());
-			if(!Util.isEmpty(referenceWhereClause)) {
-				if(whereClause.length() > 0) {
-					whereClause.append(" AND ");
-				}
-				whereClause.append("(").append(referenceWhereClause).append(")");
-			}
-		}
+		String whereClause = getEntitiesWhereClause(criteria, params);
 		//	Get page and count
 		String nexPageToken = null;
 		int pageNumber = RecordUtil.getPageNumber(request.getClientRequest().getSessionUuid(), request.getPageToken());
 		int offset = (pageNumber > 0? pageNumber - 1: 0) * RecordUtil.PAGE_SIZE;
 		int limit = (pageNumber == 0? 1: pageNumber) * RecordUtil.PAGE_SIZE;
-		Query query = new Query(context, criteria.getTableName(), whereClause.toString(), null)
+		Query query = new Query(context, criteria.getTableName(), whereClause, null)
 				.setParameters(params);
-		int count = query.count();
+		int count = 0;
 		ListEntitiesResponse.Builder builder = ListEntitiesResponse.newBuilder();
+		KeysetPagination pagination = null;
 		//	
 		if(Util.isEmpty(criteria.getQuery())) {
-			if(!Util.isEmpty(criteria.getOrderByClause())) {
-				query.setOrderBy(criteria.getOrderByClause());
+			count = RecordCountUtil.getCount(request.getCountMode(), criteria.getTableName(), whereClause, params, () -> query.count());
+			//	Keyset pagination when sort is by key columns
+			if(Util.isEmpty(criteria.getOrderByClause())) {
+				pagination = KeysetPagination.newInstance(request.getClientRequest().getSessionUuid(), request.getPageToken(), criteria.getTableName());
+			}
+			Set<String> columns = getRequestedColumns(request.getColumnsList(), criteria.getColumnsList());
+			List<PO> entityList = null;
+			if(!columns.isEmpty()) {
+				//	Only requested columns, without load the entity
+				MTable table = MTable.get(context, criteria.getTableName());
+				List<Object> pageParameters = new ArrayList<>(params);
+				String pageWhereClause = whereClause;
+				String orderByClause = criteria.getOrderByClause();
+				if(pagination != null
+						&& pagination.isValid()) {
+					pageWhereClause = pagination.addWhereClause(whereClause, pageParameters);
+					orderByClause = pagination.getOrderByClause();
+				}
+				StringBuffer sql = new StringBuffer(getSelectClause(table, columns));
+				if(!Util.isEmpty(pageWhereClause)) {
+					sql.append(" WHERE ").append(pageWhereClause);
+				}
+				if(pagination != null
+						&& pagination.isValid()) {
+					String pageSQL = PaginationUtil.getQueryWithLimit(sql.toString(), orderByClause, pagination.getFetchSize(), 0);
+					builder = convertListEntitiesResult(table, pageSQL, pageParameters, pagination);
+				} else {
+					String pageSQL = PaginationUtil.getQueryWithLimit(sql.toString(), orderByClause, RecordUtil.PAGE_SIZE, offset);
+					builder = convertListEntitiesResult(table, pageSQL, pageParameters, null);
+				}
+				entityList = new ArrayList<PO>();
+			} else if(pagination != null
+					&& pagination.isValid()) {
+				List<Object> pageParameters = new ArrayList<>(params);
+				String pageWhereClause = pagination.addWhereClause(whereClause, pageParameters);
+				entityList = pagination.getPage(new Query(context, criteria.getTableName(), pageWhereClause, null)
+						.setParameters(pageParameters)
+						.setOrderBy(pagination.getOrderByClause())
+						.setLimit(pagination.getFetchSize(), 0)
+						.<PO>list());
+			} else {
+				if(!Util.isEmpty(criteria.getOrderByClause())) {
+					query.setOrderBy(criteria.getOrderByClause());
+				}
+				entityList = query
+						.setLimit(limit, offset)
+						.<PO>list();
 			}
-			List<PO> entityList = query
-					.setLimit(limit, offset)
-					.<PO>list();
 			//	
 			for(PO entity : entityList) {
 				Entity.Builder valueObject = convertEntity(entity);
@@ -636,31 +997,26 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 			}
 		} else {
 			StringBuilder sql = new StringBuilder(criteria.getQuery());
-			if (whereClause.length() > 0) {
+			if (!Util.isEmpty(whereClause)) {
 				sql.append(" WHERE ").append(whereClause); // includes first AND
 			}
 			//	
 			String parsedSQL = MRole.getDefault().addAccessSQL(sql.toString(),
 					criteria.getTableName(), MRole.SQL_FULLYQUALIFIED,
 					MRole.SQL_RO);
-			String orderByClause = criteria.getOrderByClause();
-			if(Util.isEmpty(orderByClause)) {
-				orderByClause = "";
-			} else {
-				orderByClause = " ORDER BY " + orderByClause;
-			}
 			//	Count records
-			count = countRecords(context, parsedSQL, criteria.getTableName(), params);
-			//	Add Row Number
-			parsedSQL = parsedSQL + " AND ROWNUM >= " + offset + " AND ROWNUM <= " + limit;
-			//	Add Order By
-			parsedSQL = parsedSQL + orderByClause;
+			count = RecordCountUtil.getCountFromSQL(request.getCountMode(), parsedSQL, criteria.getTableName(), params);
+			//	Add Order By and page limit
+			parsedSQL = PaginationUtil.getQueryWithLimit(parsedSQL, criteria.getOrderByClause(), RecordUtil.PAGE_SIZE, offset);
 			builder = convertListEntitiesResult(MTable.get(context, criteria.getTableName()), parsedSQL, params);
 		}
 		//	
 		builder.setRecordCount(count);
 		//	Set page token
-		if(count > limit) {
+		if(pagination != null
+				&& pagination.isValid()) {
+			nexPageToken = pagination.getNextPageToken();
+		} else if(RecordCountUtil.hasNextPage(request.getCountMode(), count, limit, builder.getRecordsCount())) {
 			nexPageToken = RecordUtil.getPagePrefix(request.getClientRequest().getSessionUuid()) + (pageNumber + 1);
 		}
 		//	Set netxt page
@@ -669,6 +1025,101 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 		return builder;
 	}
 	
+	/**
+	 * Get where clause for entities from criteria: where clause, conditions and reference
+	 * @param criteria
+	 * @param params
+	 * @return
+	 */
+	private String getEntitiesWhereClause(Criteria criteria, List<Object> params) {
+		StringBuffer whereClause = new StringBuffer();
+		if(!Util.isEmpty(criteria.getWhereClause())) {
+			whereClause.append("(").append(criteria.getWhereClause()).append(")");
+		}
+		criteria.getValuesList().forEach(value -> params.add(ValueUtil.getObjectFromValue(value)));
+		//	For dynamic condition
+		String dynamicWhere = ValueUtil.getWhereClauseFromCriteria(criteria, params);
+		if(!Util.isEmpty(dynamicWhere)) {
+			if(whereClause.length() > 0) {
+				whereClause.append(" AND ");
+			}
+			//	Add
+			whereClause.append(dynamicWhere);
+		}
+		//	Add from reference
+		if(!Util.isEmpty(criteria.getReferenceUuid())) {
+			String referenceWhereClause = referenceWhereClauseCache.get(criteria.getReferenceUuid());
+			if(!Util.isEmpty(referenceWhereClause)) {
+				if(whereClause.length() > 0) {
+					whereClause.append(" AND ");
+				}
+				whereClause.append("(").append(referenceWhereClause).append(")");
+			}
+		}
+		return whereClause.toString();
+	}
+	
+	/**
+	 * Stream entities while the result set is read, the rows are fetched by blocks
+	 * and only sent when client is ready for receive it
+	 * @param context
+	 * @param request
+	 * @param observer
+	 * @throws Exception
+	 */
+	private void streamEntities(Properties context, ListEntitiesRequest request, FlowControlledObserver<Entity> observer) throws Exception {
+		Criteria criteria = request.getCriteria();
+		MTable table = MTable.get(context, criteria.getTableName());
+		if(table == null
+				|| table.getAD_Table_ID() == 0) {
+			throw new AdempiereException("@AD_Table_ID@ @NotFound@");
+		}
+		List<Object> params = new ArrayList<>();
+		String whereClause = getEntitiesWhereClause(criteria, params);
+		StringBuilder sql = new StringBuilder();
+		if(Util.isEmpty(criteria.getQuery())) {
+			sql.append(getSelectClause(table, getRequestedColumns(request.getColumnsList(), criteria.getColumnsList())));
+		} else {
+			sql.append(criteria.getQuery());
+		}
+		if (!Util.isEmpty(whereClause)) {
+			sql.append(" WHERE ").append(whereClause);
+		}
+		String parsedSQL = MRole.getDefault().addAccessSQL(sql.toString(),
+				table.getTableName(), MRole.SQL_FULLYQUALIFIED,
+				MRole.SQL_RO);
+		if(!Util.isEmpty(criteria.getOrderByClause())) {
+			parsedSQL = parsedSQL + " ORDER BY " + criteria.getOrderByClause();
+		}
+		//	A transaction is required for fetch by blocks (cursor)
+		String transactionName = Trx.createTrxName("StreamEntities");
+		Trx transaction = Trx.get(transactionName, true);
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try {
+			pstmt = DB.prepareStatement(parsedSQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, transactionName);
+			pstmt.setFetchSize(STREAM_FETCH_SIZE);
+			int parameterIndex = 1;
+			for(Object value : params) {
+				ValueUtil.setParameterFromObject(pstmt, value, parameterIndex++);
+			}
+			rs = pstmt.executeQuery();
+			RowMapper rowMapper = RowMapper.getTableMapper(table, rs.getMetaData());
+			while(rs.next()) {
+				Entity.Builder entity = rowMapper.map(rs);
+				if(!observer.onNext(entity.build())) {
+					log.fine("Stream cancelled by client: " + table.getTableName());
+					break;
+				}
+			}
+		} finally {
+			DB.close(rs, pstmt);
+			rs = null;
+			pstmt = null;
+			transaction.close();
+		}
+	}
+	
 	/**
 	 * Convert Entities List
 	 * @param table
@@ -676,16 +1127,23 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 	 * @return
 	 */
 	private ListEntitiesResponse.Builder convertListEntitiesResult(MTable table, String sql, List<Object> params) {
+		return convertListEntitiesResult(table, sql, params, null);
+	}
+	
+	/**
+	 * Convert Entities List, the page limit is part of SQL
+	 * @param table
+	 * @param sql
+	 * @param params
+	 * @param pagination keyset pagination for set next page values, can be null
+	 * @return
+	 */
+	private ListEntitiesResponse.Builder convertListEntitiesResult(MTable table, String sql, List<Object> params, KeysetPagination pagination) {
 		PreparedStatement pstmt = null;
 		ResultSet rs = null;
 		ListEntitiesResponse.Builder builder = ListEntitiesResponse.newBuilder();
 		long recordCount = 0;
 		try {
-			LinkedHashMap<String, MColumn> columnsMap = new LinkedHashMap<>();
-			//	Add field to map
-			for(MColumn column: table.getColumnsAsList()) {
-				columnsMap.put(column.getColumnName().toUpperCase(), column);
-			}
 			//	SELECT Key, Value, Name FROM ...
 			pstmt = DB.prepareStatement(sql, null);
 			AtomicInteger parameterIndex = new AtomicInteger(1);
@@ -694,36 +1152,25 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 			} 
 			//	Get from Query
 			rs = pstmt.executeQuery();
+			RowMapper rowMapper = RowMapper.getTableMapper(table, rs.getMetaData());
+			List<Object> lastKeyValues = null;
 			while(rs.next()) {
-				Entity.Builder valueObjectBuilder = Entity.newBuilder();
-				ResultSetMetaData metaData = rs.getMetaData();
-				for (int index = 1; index <= metaData.getColumnCount(); index++) {
-					try {
-						String columnName = metaData.getColumnName (index);
-						MColumn field = columnsMap.get(columnName.toUpperCase());
-						Value.Builder valueBuilder = Value.newBuilder();
-						//	Display Columns
-						if(field == null) {
-							String value = rs.getString(index);
-							if(!Util.isEmpty(value)) {
-								valueBuilder = ValueUtil.getValueFromString(value);
-								valueObjectBuilder.putValues(columnName, valueBuilder.build());
-							}
-							continue;
-						}
-						//	From field
-						String fieldColumnName = field.getColumnName();
-						valueBuilder = ValueUtil.getValueFromReference(rs.getObject(index), field.getAD_Reference_ID());
-						if(!valueBuilder.getValueType().equals(Value.ValueType.UNRECOGNIZED)) {
-							valueObjectBuilder.putValues(fieldColumnName, valueBuilder.build());
-						}
-					} catch (Exception e) {
-						log.severe(e.getLocalizedMessage());
-					}
+				//	Extra row: exists a next page
+				if(pagination != null
+						&& recordCount >= pagination.getPageSize()) {
+					pagination.setNextValues(lastKeyValues);
+					break;
 				}
+				Entity.Builder valueObjectBuilder = rowMapper.map(rs);
 				//	
 				builder.addRecords(valueObjectBuilder.build());
 				recordCount++;
+				if(pagination != null) {
+					lastKeyValues = new ArrayList<Object>();
+					for(String keyColumn : pagination.getKeyColumns()) {
+						lastKeyValues.add(rs.getObject(keyColumn));
+					}
+				}
 			}
 		} catch (Exception e) {
 			log.severe(e.getLocalizedMessage());
@@ -736,20 +1183,6 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 		return builder;
 	}
 	
-	/**
-	 * Count records
-	 * @param context
-	 * @param sql
-	 * @param tableName
-	 * @param parameters
-	 * @return
-	 */
-	private int countRecords(Properties context, String sql, String tableName, List<Object> parameters) {
-		int positionFrom = sql.lastIndexOf(" FROM " + tableName);
-		String queryCount = "SELECT COUNT(*) " + sql.substring(positionFrom, sql.length());
-		return DB.getSQLValueEx(null, queryCount, parameters);
-	}
-	
 	/**
 	 * Convert PO to Value Object
 	 * @param entity
@@ -781,4 +1214,173 @@ public class BusinessDataServiceImplementation extends BusinessDataImplBase {
 		//	
 		return builder;
 	}
+	
+	/**
+	 * Receiver of entity operations: all operations are applied in a named transaction,
+	 * each operation have a savepoint then a failed operation is reverted without lost the previous
+	 * operations. The transaction is committed each N operations (if it is defined) and on completed.
+	 */
+	private class EntityOperationsObserver implements StreamObserver<EntityOperationRequest> {
+		
+		/**
+		 * Default constructor
+		 * @param responseObserver
+		 */
+		EntityOperationsObserver(StreamObserver<ApplyEntityOperationsResponse> responseObserver) {
+			this.responseObserver = responseObserver;
+		}
+		
+		/**	Response	*/
+		private StreamObserver<ApplyEntityOperationsResponse> responseObserver;
+		/**	Response Builder	*/
+		private ApplyEntityOperationsResponse.Builder builder = ApplyEntityOperationsResponse.newBuilder();
+		/**	Context of first request	*/
+		private Properties context;
+		/**	Transaction	*/
+		private Trx transaction;
+		/**	Commit each N operations	*/
+		private int commitEvery = 0;
+		/**	Operations after last commit	*/
+		private int pendingOperations = 0;
+		/**	Operations committed	*/
+		private int committedOperations = 0;
+		/**	Failed	*/
+		private boolean isFailed = false;
+		
+		@Override
+		public void onNext(EntityOperationRequest request) {
+			if(isFailed) {
+				return;
+			}
+			try {
+				if(transaction == null) {
+					context = ContextManager.getContext(request.getClientRequest().getSessionUuid(), request.getClientRequest().getLanguage(), request.getClientRequest().getOrganizationUuid(), request.getClientRequest().getWarehouseUuid());
+					commitEvery = request.getCommitEvery();
+					transaction = Trx.get(Trx.createTrxName("ApplyEntityOperations"), true);
+				}
+				applyOperation(request);
+				pendingOperations++;
+				if(commitEvery > 0
+						&& pendingOperations >= commitEvery) {
+					transaction.commit(true);
+					committedOperations += pendingOperations;
+					pendingOperations = 0;
+				}
+			} catch (Exception e) {
+				onFailure(e);
+			}
+		}
+		
+		/**
+		 * Apply operation with a savepoint, the error is added to results
+		 * @param request
+		 * @throws SQLException
+		 */
+		private void applyOperation(EntityOperationRequest request) throws SQLException {
+			EntityOperationResult.Builder result = EntityOperationResult.newBuilder()
+					.setIndex(builder.getProcessed());
+			Savepoint savepoint = transaction.setSavepoint(null);
+			try {
+				PO entity = null;
+				if(request.getOperation() == EntityOperationRequest.Operation.CREATE) {
+					entity = createEntity(context, request.getTableName(), request.getAttributesList(), transaction.getTrxName());
+				} else if(request.getOperation() == EntityOperationRequest.Operation.UPDATE) {
+					entity = updateEntity(context, request.getTableName(), request.getUuid(), request.getRecordId(), request.getAttributesList(), transaction.getTrxName());
+				} else {
+					entity = deleteEntity(context, request.getTableName(), request.getUuid(), request.getRecordId(), transaction.getTrxName());
+				}
+				if(entity == null) {
+					throw new AdempiereException("@Record_ID@ @NotFound@");
+				}
+				result.setRecordId(entity.get_ID())
+					.setUuid(ValueUtil.validateNull(entity.get_ValueAsString(I_AD_Element.COLUMNNAME_UUID)));
+			} catch (Exception e) {
+				log.warning(e.getLocalizedMessage());
+				transaction.rollback(savepoint);
+				result.setRecordId(request.getRecordId())
+					.setUuid(request.getUuid())
+					.setIsError(true)
+					.setMessage(ValueUtil.validateNull(e.getLocalizedMessage()));
+				builder.setErrors(builder.getErrors() + 1);
+				savepoint = null;
+			}
+			//	Release it, else each operation keep a subtransaction open until commit (Oracle does not support it)
+			if(savepoint != null
+					&& !DB.isOracle()) {
+				try {
+					transaction.getConnection().releaseSavepoint(savepoint);
+				} catch (Exception e) {
+					log.fine("Savepoint not released: " + e.getLocalizedMessage());
+				}
+			}
+			builder.setProcessed(builder.getProcessed() + 1)
+				.addResults(result);
+		}
+		
+		@Override
+		public void onError(Throwable throwable) {
+			log.warning(throwable.getLocalizedMessage());
+			closeTransaction(false);
+		}
+		
+		@Override
+		public void onCompleted() {
+			if(isFailed) {
+				return;
+			}
+			try {
+				if(transaction != null) {
+					transaction.commit(true);
+				}
+				closeTransaction(true);
+				responseObserver.onNext(builder.build());
+				responseObserver.onCompleted();
+			} catch (Exception e) {
+				onFailure(e);
+			}
+		}
+		
+		/**
+		 * Rollback pending operations and send error, if some operations are committed then
+		 * the results of committed operations are sent
+		 * @param e
+		 */
+		private void onFailure(Exception e) {
+			log.severe(e.getLocalizedMessage());
+			isFailed = true;
+			closeTransaction(false);
+			if(committedOperations > 0) {
+				List<EntityOperationResult> committedResults = builder.getResultsList().subList(0, committedOperations);
+				ApplyEntityOperationsResponse.Builder committedBuilder = ApplyEntityOperationsResponse.newBuilder()
+						.setProcessed(committedOperations)
+						.setErrors((int) committedResults.stream().filter(result -> result.getIsError()).count())
+						.addAllResults(committedResults)
+						.setIsFailed(true)
+						.setMessage(ValueUtil.validateNull(e.getLocalizedMessage()));
+				responseObserver.onNext(committedBuilder.build());
+				responseObserver.onCompleted();
+				return;
+			}
+			responseObserver.onError(Status.INTERNAL
+					.withDescription(e.getLocalizedMessage())
+					.augmentDescription(e.getLocalizedMessage())
+					.withCause(e)
+					.asRuntimeException());
+		}
+		
+		/**
+		 * Close transaction, rollback if it is not committed
+		 * @param isCommitted
+		 */
+		private void closeTransaction(boolean isCommitted) {
+			if(transaction == null) {
+				return;
+			}
+			if(!isCommitted) {
+				transaction.rollback();
+			}
+			transaction.close();
+			transaction = null;
+		}
+	}
 }
@@ -0,0 +1,209 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.grpc.util;
+
+import java.lang.reflect.Method;
+
+import javax.sql.DataSource;
+
+import org.compiere.db.CConnection;
+import org.compiere.util.CLogger;
+import org.spin.base.setup.Pool;
+
+/**
+ * Settings and statistics of JDBC connection pool of ADempiere. The pool depends of ADempiere version
+ * (HikariCP or c3p0) and it is not a dependency of this project, then the settings are applied by reflection
+ */
+public class ConnectionPoolUtil {
+	
+	/**	Class of HikariCP data source	*/
+	private static final String HIKARI_DATA_SOURCE = "com.zaxxer.hikari.HikariDataSource";
+	/**	Class of c3p0 data source	*/
+	private static final String C3P0_DATA_SOURCE = "com.mchange.v2.c3p0.ComboPooledDataSource";
+	/**	Logger			*/
+	private static CLogger log = CLogger.getCLogger(ConnectionPoolUtil.class);
+	
+	/**
+	 * Get data source of pool, without proxy of statements
+	 * @return
+	 */
+	private static DataSource getDataSource() {
+		DataSource dataSource = StatementMetrics.getOriginalDataSource();
+		if(dataSource != null) {
+			return dataSource;
+		}
+		CConnection connection = CConnection.get();
+		return connection.getDatabase().getDataSource(connection);
+	}
+	
+	/**
+	 * Apply settings of setup to pool
+	 * @param pool
+	 */
+	public static void configure(Pool pool) {
+		if(pool == null) {
+			return;
+		}
+		DataSource dataSource = getDataSource();
+		if(dataSource == null) {
+			log.warning("Data source not found, pool settings are not applied");
+			return;
+		}
+		String className = dataSource.getClass().getName();
+		if(HIKARI_DATA_SOURCE.equals(className)) {
+			//	Runtime settings of Hikari are changed by MXBean, the others are sealed after start
+			Object config = invoke(dataSource, "getHikariConfigMXBean");
+			Object target = config == null? dataSource: config;
+			if(pool.getMin_size() > 0) {
+				invoke(target, "setMinimumIdle", pool.getMin_size());
+			}
+			if(pool.getMax_size() > 0) {
+				invoke(target, "setMaximumPoolSize", pool.getMax_size());
+			}
+			if(pool.getAcquisition_timeout() > 0) {
+				invoke(target, "setConnectionTimeout", (long) pool.getAcquisition_timeout());
+			}
+			if(pool.getLeak_detection_threshold() > 0) {
+				invoke(target, "setLeakDetectionThreshold", (long) pool.getLeak_detection_threshold());
+			}
+			//	Statement cache and keepalive of Hikari can not be changed after start of pool
+			if(pool.getStatement_cache_size() > 0
+					|| pool.getValidation_interval() > 0) {
+				log.warning("Statement cache size and validation interval are not supported for " + className);
+			}
+		} else if(C3P0_DATA_SOURCE.equals(className)) {
+			if(pool.getMin_size() > 0) {
+				invoke(dataSource, "setMinPoolSize", pool.getMin_size());
+			}
+			if(pool.getMax_size() > 0) {
+				invoke(dataSource, "setMaxPoolSize", pool.getMax_size());
+			}
+			if(pool.getAcquisition_timeout() > 0) {
+				invoke(dataSource, "setCheckoutTimeout", pool.getAcquisition_timeout());
+			}
+			if(pool.getStatement_cache_size() > 0) {
+				invoke(dataSource, "setMaxStatements", pool.getStatement_cache_size());
+			}
+			if(pool.getValidation_interval() > 0) {
+				invoke(dataSource, "setIdleConnectionTestPeriod", pool.getValidation_interval());
+			}
+			if(pool.getLeak_detection_threshold() > 0) {
+				if(pool.isLeak_reaping()) {
+					//	c3p0 use seconds and close the connection not returned, with stack trace of checkout
+					invoke(dataSource, "setUnreturnedConnectionTimeout", Math.max(1, pool.getLeak_detection_threshold() / 1000));
+					invoke(dataSource, "setDebugUnreturnedConnectionStackTraces", true);
+				} else {
+					//	Reports, streams and process jobs can hold a connection more than threshold
+					log.warning("c3p0 has not a leak detection without close connections, leak detection threshold is ignored (set leak_reaping for close them)");
+				}
+			}
+		} else {
+			log.warning("Pool " + className + " is not supported, pool settings are not applied");
+			return;
+		}
+		log.info("Pool settings applied to " + className + ": " + pool);
+	}
+	
+	/**
+	 * Close the connections of pool softly (the connections in use are closed when they are returned),
+	 * then the pool open new connections
+	 * @param dataSource
+	 */
+	static void softEvictConnections(DataSource dataSource) {
+		String className = dataSource.getClass().getName();
+		if(HIKARI_DATA_SOURCE.equals(className)) {
+			//	Pool of Hikari is created with first connection
+			Object poolBean = invoke(dataSource, "getHikariPoolMXBean");
+			if(poolBean != null) {
+				invoke(poolBean, "softEvictConnections");
+			}
+		} else if(C3P0_DATA_SOURCE.equals(className)) {
+			invoke(dataSource, "softResetAllUsers");
+		}
+	}
+	
+	/**
+	 * Register gauges of pool: active, idle, waiting and total connections
+	 */
+	public static void registerGauges() {
+		MetricsEndpoint.registerGauge("adempiere_pool_connections{state=\"active\"}", "Connections of JDBC pool", () -> getStatistic("getActiveConnections", "getNumBusyConnectionsDefaultUser"));
+		MetricsEndpoint.registerGauge("adempiere_pool_connections{state=\"idle\"}", "Connections of JDBC pool", () -> getStatistic("getIdleConnections", "getNumIdleConnectionsDefaultUser"));
+		MetricsEndpoint.registerGauge("adempiere_pool_connections{state=\"total\"}", "Connections of JDBC pool", () -> getStatistic("getTotalConnections", "getNumConnectionsDefaultUser"));
+		MetricsEndpoint.registerGauge("adempiere_pool_waiting", "Threads waiting for a connection of JDBC pool", () -> getStatistic("getThreadsAwaitingConnection", "getNumThreadsAwaitingCheckoutDefaultUser"));
+	}
+	
+	/**
+	 * Get a statistic of pool
+	 * @param hikariMethod method of Hikari pool MXBean
+	 * @param c3p0Method method of c3p0 data source
+	 * @return null if pool is not supported
+	 */
+	private static Number getStatistic(String hikariMethod, String c3p0Method) {
+		DataSource dataSource = getDataSource();
+		if(dataSource == null) {
+			return null;
+		}
+		String className = dataSource.getClass().getName();
+		Object value = null;
+		if(HIKARI_DATA_SOURCE.equals(className)) {
+			Object poolBean = invoke(dataSource, "getHikariPoolMXBean");
+			if(poolBean != null) {
+				value = invoke(poolBean, hikariMethod);
+			}
+		} else if(C3P0_DATA_SOURCE.equals(className)) {
+			value = invoke(dataSource, c3p0Method);
+		}
+		return value instanceof Number? (Number) value: null;
+	}
+	
+	/**
+	 * Invoke a public method by name, the numeric arguments are converted to type of parameter
+	 * @param target
+	 * @param methodName
+	 * @param arguments
+	 * @return null if method is not found or fails
+	 */
+	private static Object invoke(Object target, String methodName, Object... arguments) {
+		for(Method method : target.getClass().getMethods()) {
+			if(!method.getName().equals(methodName)
+					|| method.getParameterCount() != arguments.length) {
+				continue;
+			}
+			Class<?>[] types = method.getParameterTypes();
+			Object[] values = new Object[arguments.length];
+			for(int index = 0; index < arguments.length; index++) {
+				Object argument = arguments[index];
+				if(argument instanceof Number) {
+					if(types[index] == int.class || types[index] == Integer.class) {
+						argument = ((Number) argument).intValue();
+					} else if(types[index] == long.class || types[index] == Long.class) {
+						argument = ((Number) argument).longValue();
+					}
+				}
+				values[index] = argument;
+			}
+			try {
+				method.setAccessible(true);
+				return method.invoke(target, values);
+			} catch (Exception e) {
+				log.warning(target.getClass().getName() + "." + methodName + ": " + (e.getCause() == null? e.getLocalizedMessage(): e.getCause().getLocalizedMessage()));
+				return null;
+			}
+		}
+		log.fine("Method not found " + target.getClass().getName() + "." + methodName);
+		return null;
+	}
+}
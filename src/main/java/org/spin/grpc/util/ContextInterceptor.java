@@ -0,0 +1,156 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.grpc.util;
+
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import org.compiere.util.ContextProvider;
+import org.compiere.util.Env;
+
+import io.grpc.Context;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+
+/**
+ * Interceptor that give to each call an own copy of context: the context is stored in gRPC context
+ * and bound to thread for all callbacks of call, then {@link Env#getCtx()} return the context of call and
+ * the concurrent calls of different sessions can not change the values of other calls.
+ * Outside of a call (startup, background tasks) the default context is used.
+ */
+public class ContextInterceptor implements ServerInterceptor {
+	
+	/**	Context of call	*/
+	public static final Context.Key<Properties> CONTEXT_KEY = Context.key("adempiere-context");
+	/**	Context bound to current thread	*/
+	private static final ThreadLocal<Properties> threadContext = new ThreadLocal<Properties>();
+	/**	Default context, used outside of a call	*/
+	private static Properties defaultContext;
+	
+	/**
+	 * Default constructor: register the context provider of ADempiere
+	 */
+	public ContextInterceptor() {
+		install();
+	}
+	
+	/**
+	 * Register context provider, only once
+	 */
+	private static synchronized void install() {
+		if(defaultContext != null) {
+			return;
+		}
+		defaultContext = Env.getCtx();
+		Env.setContextProvider(new CallContextProvider());
+	}
+	
+	@Override
+	public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+		Properties context = new Properties();
+		context.putAll(defaultContext);
+		Context callContext = Context.current().withValue(CONTEXT_KEY, context);
+		ServerCall.Listener<ReqT> delegate = callWithContext(context, () -> {
+			Context previous = callContext.attach();
+			try {
+				return next.startCall(call, headers);
+			} finally {
+				callContext.detach(previous);
+			}
+		});
+		return new SimpleForwardingServerCallListener<ReqT>(delegate) {
+			@Override
+			public void onMessage(ReqT message) {
+				runWithContext(context, () -> super.onMessage(message));
+			}
+			
+			@Override
+			public void onHalfClose() {
+				runWithContext(context, () -> super.onHalfClose());
+			}
+			
+			@Override
+			public void onCancel() {
+				runWithContext(context, () -> super.onCancel());
+			}
+			
+			@Override
+			public void onComplete() {
+				runWithContext(context, () -> super.onComplete());
+			}
+			
+			@Override
+			public void onReady() {
+				runWithContext(context, () -> super.onReady());
+			}
+		};
+	}
+	
+	/**
+	 * Run a task with a context bound to current thread, used also for tasks of a call that run on other threads
+	 * @param context
+	 * @param task
+	 */
+	public static void runWithContext(Properties context, Runnable task) {
+		callWithContext(context, () -> {
+			task.run();
+			return null;
+		});
+	}
+	
+	/**
+	 * Call a function with a context bound to current thread
+	 * @param context
+	 * @param task
+	 * @return
+	 */
+	public static <T> T callWithContext(Properties context, Supplier<T> task) {
+		Properties previous = threadContext.get();
+		threadContext.set(context);
+		try {
+			return task.get();
+		} finally {
+			if(previous == null) {
+				threadContext.remove();
+			} else {
+				threadContext.set(previous);
+			}
+		}
+	}
+	
+	/**
+	 * Context provider for ADempiere: context of call bound to thread or default context
+	 */
+	private static class CallContextProvider implements ContextProvider {
+		
+		@Override
+		public Properties getContext() {
+			Properties context = threadContext.get();
+			if(context == null) {
+				context = CONTEXT_KEY.get();
+			}
+			return context == null? defaultContext: context;
+		}
+		
+		@Override
+		public void showURL(String url) {
+			//	Not supported on server
+		}
+	}
+}
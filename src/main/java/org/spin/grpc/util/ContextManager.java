@@ -17,6 +17,9 @@ package org.spin.grpc.util;
 
 import java.sql.Timestamp;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 
@@ -43,8 +46,16 @@ import org.compiere.util.Util;
  */
 public class ContextManager {
 	
-	/**	Session Context	*/
-	private static CCache<String, Properties> sessionsContext = new CCache<String, Properties>("Session-gRPC-Service", 30, 0);	//	no time-out
+	/**	Maximum sessions in cache	*/
+	private static final int MAX_SESSIONS = 10000;
+	/**	Time for remove a session without use (milliseconds)	*/
+	private static final long SESSION_IDLE_TIME = 30 * 60 * 1000;
+	/**	Time between verification of a cached session against AD_Session (milliseconds), a logout of other server is found after it	*/
+	private static final long SESSION_VALIDATION_TIME = 30 * 1000;
+	/**	Session values by UUID, copied to context of each call, access order for remove idle sessions	*/
+	private static final LinkedHashMap<String, SessionValues> sessionsContext = new LinkedHashMap<>(16, 0.75f, true);
+	/**	Approximate size of cached sessions (bytes)	*/
+	private static long sessionsBytes = 0;
 	/**	Language */
 	private static CCache<String, String> languageCache = new CCache<String, String>("Language-gRPC-Service", 30, 0);	//	no time-out
 	/**	Organization Cache	*/
@@ -63,7 +74,7 @@ public class ContextManager {
 	}
 	
 	/**
-	 * Get context from session
+	 * Get context from session: the session values are copied to context of current call
 	 * @param sessionUuid
 	 * @param language
 	 * @param organizationUuid
@@ -71,33 +82,140 @@ public class ContextManager {
 	 * @return
 	 */
 	public static Properties getContext(String sessionUuid, String language, String organizationUuid, String warehouseUuid) {
-		Properties context = sessionsContext.get(sessionUuid);
-		if(context != null) {
-			Env.setContext(context, Env.LANGUAGE, getDefaultLanguage(language));
-			setDefault(context, Env.getAD_Org_ID(context), organizationUuid, warehouseUuid);
-			return context;
-		}
-		context = Env.getCtx();
-		DB.validateSupportedUUIDFromDB();
-		MSession session = new Query(context, I_AD_Session.Table_Name, I_AD_Session.COLUMNNAME_UUID + " = ?", null)
-				.setParameters(sessionUuid)
-				.first();
-		if(session == null
-				|| session.getAD_Session_ID() <= 0) {
-			throw new AdempiereException("@AD_Session_ID@ @NotFound@");
-		}
-		Env.setContext (context, "#AD_Session_ID", session.getAD_Session_ID());
-		Env.setContext(context, "#AD_User_ID", session.getCreatedBy());
-		Env.setContext(context, "#AD_Role_ID", session.getAD_Role_ID());
-		Env.setContext(context, "#AD_Client_ID", session.getAD_Client_ID());
-		setDefault(context, session.getAD_Org_ID(), organizationUuid, warehouseUuid);
+		Properties context = Env.getCtx();
+		Properties sessionContext = getSessionValues(sessionUuid);
+		if(sessionContext == null) {
+			DB.validateSupportedUUIDFromDB();
+			MSession session = new Query(context, I_AD_Session.Table_Name, I_AD_Session.COLUMNNAME_UUID + " = ?", null)
+					.setParameters(sessionUuid)
+					.first();
+			if(session == null
+					|| session.getAD_Session_ID() <= 0) {
+				throw new AdempiereException("@AD_Session_ID@ @NotFound@");
+			}
+			//	Logout
+			if(session.isProcessed()
+					|| !session.isActive()) {
+				throw new AdempiereException("@AD_Session_ID@ @Expired@");
+			}
+			sessionContext = new Properties();
+			Env.setContext(sessionContext, "#AD_Session_ID", session.getAD_Session_ID());
+			Env.setContext(sessionContext, "#AD_User_ID", session.getCreatedBy());
+			Env.setContext(sessionContext, "#AD_Role_ID", session.getAD_Role_ID());
+			Env.setContext(sessionContext, "#AD_Client_ID", session.getAD_Client_ID());
+			Env.setContext(sessionContext, "#AD_Org_ID", session.getAD_Org_ID());
+			//	Save to Cache
+			putSessionValues(sessionUuid, sessionContext);
+		}
+		context.putAll(sessionContext);
+		setDefault(context, Env.getAD_Org_ID(sessionContext), organizationUuid, warehouseUuid);
 		Env.setContext(context, "#Date", new Timestamp(System.currentTimeMillis()));
 		Env.setContext(context, Env.LANGUAGE, getDefaultLanguage(language));
-		//	Save to Cache
-		sessionsContext.put(sessionUuid, context);
 		return context;
 	}
 	
+	/**
+	 * Get cached values of session, an idle session is removed. The session is verified against
+	 * AD_Session each {@link #SESSION_VALIDATION_TIME}, because the logout can be done by other server
+	 * @param sessionUuid
+	 * @return null if session is not cached
+	 */
+	private static Properties getSessionValues(String sessionUuid) {
+		SessionValues values;
+		long now = System.currentTimeMillis();
+		synchronized (sessionsContext) {
+			values = sessionsContext.get(sessionUuid);
+			if(values == null) {
+				return null;
+			}
+			if(now - values.lastAccess > SESSION_IDLE_TIME) {
+				removeSessionValues(sessionUuid);
+				return null;
+			}
+			values.lastAccess = now;
+			if(now - values.validated <= SESSION_VALIDATION_TIME) {
+				return values.context;
+			}
+		}
+		int sessionId = Env.getContextAsInt(values.context, "#AD_Session_ID");
+		int validSessions = DB.getSQLValue(null, "SELECT COUNT(*) FROM AD_Session WHERE AD_Session_ID = ? AND Processed = 'N' AND IsActive = 'Y'", sessionId);
+		if(validSessions <= 0) {
+			removeSession(sessionUuid);
+			return null;
+		}
+		values.validated = now;
+		return values.context;
+	}
+	
+	/**
+	 * Put values of session in cache, the idle sessions and the least recently used sessions over maximum are removed
+	 * @param sessionUuid
+	 * @param context
+	 */
+	private static void putSessionValues(String sessionUuid, Properties context) {
+		SessionValues values = new SessionValues(context);
+		synchronized (sessionsContext) {
+			removeSessionValues(sessionUuid);
+			sessionsContext.put(sessionUuid, values);
+			sessionsBytes += values.bytes;
+			long expireTime = System.currentTimeMillis() - SESSION_IDLE_TIME;
+			Iterator<Map.Entry<String, SessionValues>> iterator = sessionsContext.entrySet().iterator();
+			while(iterator.hasNext()) {
+				SessionValues eldest = iterator.next().getValue();
+				if(sessionsContext.size() <= MAX_SESSIONS
+						&& eldest.lastAccess >= expireTime) {
+					break;
+				}
+				iterator.remove();
+				sessionsBytes -= eldest.bytes;
+			}
+		}
+	}
+	
+	/**
+	 * Remove session from cache, used on logout and change of role
+	 * @param sessionUuid
+	 */
+	public static void removeSession(String sessionUuid) {
+		if(Util.isEmpty(sessionUuid)) {
+			return;
+		}
+		synchronized (sessionsContext) {
+			removeSessionValues(sessionUuid);
+		}
+	}
+	
+	/**
+	 * Remove session values and update size, must be called with lock of cache
+	 * @param sessionUuid
+	 */
+	private static void removeSessionValues(String sessionUuid) {
+		SessionValues values = sessionsContext.remove(sessionUuid);
+		if(values != null) {
+			sessionsBytes -= values.bytes;
+		}
+	}
+	
+	/**
+	 * Get quantity of cached sessions
+	 * @return
+	 */
+	public static int getSessionCacheSize() {
+		synchronized (sessionsContext) {
+			return sessionsContext.size();
+		}
+	}
+	
+	/**
+	 * Get approximate size of cached sessions (bytes)
+	 * @return
+	 */
+	public static long getSessionCacheBytes() {
+		synchronized (sessionsContext) {
+			return sessionsBytes;
+		}
+	}
+	
 	/**
 	 * Set Default warehouse and organization
 	 * @param context
@@ -191,4 +309,35 @@ public class ContextManager {
 		//	Default return
 		return defaultLanguage;
 	}
+	
+	/**
+	 * Cached values of session
+	 */
+	private static class SessionValues {
+		
+		/**
+		 * Default constructor
+		 * @param context
+		 */
+		SessionValues(Properties context) {
+			this.context = context;
+			this.lastAccess = System.currentTimeMillis();
+			this.validated = lastAccess;
+			//	Approximate: characters of keys and values and overhead of entry
+			long size = 64;
+			for(Map.Entry<Object, Object> entry : context.entrySet()) {
+				size += 2 * (String.valueOf(entry.getKey()).length() + String.valueOf(entry.getValue()).length()) + 64;
+			}
+			this.bytes = size;
+		}
+		
+		/**	Session values	*/
+		private Properties context;
+		/**	Last access	*/
+		private long lastAccess;
+		/**	Last verification against AD_Session	*/
+		private volatile long validated;
+		/**	Approximate size (bytes)	*/
+		private long bytes;
+	}
 }
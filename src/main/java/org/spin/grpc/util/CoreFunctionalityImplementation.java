@@ -16,7 +16,9 @@ package org.spin.grpc.util;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.adempiere.exceptions.AdempiereException;
 import org.compiere.model.I_AD_Language;
@@ -50,6 +52,7 @@ import org.compiere.util.Util;
 import org.spin.grpc.util.CoreFunctionalityGrpc.CoreFunctionalityImplBase;
 
 import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
 
 /**
@@ -172,6 +175,9 @@ public class CoreFunctionalityImplementation extends CoreFunctionalityImplBase {
 			ListBusinessPartnerResponse.Builder businessPartnerList = getBusinessPartnerList(request);
 			responseObserver.onNext(businessPartnerList.build());
 			responseObserver.onCompleted();
+		} catch (StatusRuntimeException e) {
+			log.warning(e.getLocalizedMessage());
+			responseObserver.onError(e);
 		} catch (Exception e) {
 			log.severe(e.getLocalizedMessage());
 			responseObserver.onError(Status.INTERNAL
@@ -269,8 +275,9 @@ public class CoreFunctionalityImplementation extends CoreFunctionalityImplBase {
 		}
 		//	Get values
 		Timestamp conversionDate = new Timestamp(request.getConversionDate() == 0? System.currentTimeMillis(): request.getConversionDate());
-		int conversionRateId = MConversionRate.getConversionRateId(RecordUtil.getIdFromUuid(I_C_Currency.Table_Name, request.getCurrencyFromUuid(), null), 
-				RecordUtil.getIdFromUuid(I_C_Currency.Table_Name, request.getCurrencyToUuid(), null), 
+		Map<String, Integer> currencyIds = RecordUtil.getIdsFromUuids(I_C_Currency.Table_Name, Arrays.asList(request.getCurrencyFromUuid(), request.getCurrencyToUuid()));
+		int conversionRateId = MConversionRate.getConversionRateId(currencyIds.getOrDefault(request.getCurrencyFromUuid(), -1), 
+				currencyIds.getOrDefault(request.getCurrencyToUuid(), -1), 
 				conversionDate, 
 				RecordUtil.getIdFromUuid(I_C_ConversionType.Table_Name, request.getConversionTypeUuid(), null), 
 				Env.getAD_Client_ID(Env.getCtx()), 
@@ -290,10 +297,7 @@ public class CoreFunctionalityImplementation extends CoreFunctionalityImplBase {
 	 */
 	private ListBusinessPartnerResponse.Builder getBusinessPartnerList(ListBusinessPartnerRequest request) {
 		ListBusinessPartnerResponse.Builder builder = ListBusinessPartnerResponse.newBuilder();
-		String nexPageToken = null;
-		int pageNumber = RecordUtil.getPageNumber(request.getClientRequest().getSessionUuid(), request.getPageToken());
-		int offset = (pageNumber > 0? pageNumber - 1: 0) * RecordUtil.PAGE_SIZE;
-		int limit = (pageNumber == 0? 1: pageNumber) * RecordUtil.PAGE_SIZE;
+		KeysetPagination pagination = KeysetPagination.newInstance(request.getClientRequest().getSessionUuid(), request.getPageToken(), I_C_BPartner.Table_Name, I_C_BPartner.COLUMNNAME_C_BPartner_ID);
 		//	Get business partner list
 		//	Dynamic where clause
 		StringBuffer whereClause = new StringBuffer();
@@ -301,17 +305,24 @@ public class CoreFunctionalityImplementation extends CoreFunctionalityImplBase {
 		List<Object> parameters = new ArrayList<Object>();
 		//	For search value
 		if(!Util.isEmpty(request.getSearchValue())) {
-			whereClause.append("("
-				+ "UPPER(Value) LIKE '%' || UPPER(?) || '%'"
-				+ "OR UPPER(Name) LIKE '%' || UPPER(?) || '%'"
-				+ "OR UPPER(Name2) LIKE '%' || UPPER(?) || '%'"
-				+ "OR UPPER(Description) LIKE '%' || UPPER(?) || '%'"
-				+ ")");
-			//	Add parameters
-			parameters.add(request.getSearchValue());
-			parameters.add(request.getSearchValue());
-			parameters.add(request.getSearchValue());
-			parameters.add(request.getSearchValue());
+			//	Candidates from search index
+			String indexWhereClause = TrigramIndex.getInstance().getWhereClause(I_C_BPartner.Table_Name, request.getSearchValue(), parameters, 
+					I_C_BPartner.COLUMNNAME_Value, I_C_BPartner.COLUMNNAME_Name, I_C_BPartner.COLUMNNAME_Name2, I_C_BPartner.COLUMNNAME_Description);
+			if(indexWhereClause != null) {
+				whereClause.append("(").append(indexWhereClause).append(")");
+			} else {
+				whereClause.append("("
+					+ "UPPER(Value) LIKE '%' || UPPER(?) || '%'"
+					+ "OR UPPER(Name) LIKE '%' || UPPER(?) || '%'"
+					+ "OR UPPER(Name2) LIKE '%' || UPPER(?) || '%'"
+					+ "OR UPPER(Description) LIKE '%' || UPPER(?) || '%'"
+					+ ")");
+				//	Add parameters
+				parameters.add(request.getSearchValue());
+				parameters.add(request.getSearchValue());
+				parameters.add(request.getSearchValue());
+				parameters.add(request.getSearchValue());
+			}
 		}
 		//	For value
 		if(!Util.isEmpty(request.getValue())) {
@@ -373,24 +384,28 @@ public class CoreFunctionalityImplementation extends CoreFunctionalityImplBase {
 			}
 		}
 		//	Get Product list
-		Query query = new Query(Env.getCtx(), I_C_BPartner.Table_Name, 
+		int count = new Query(Env.getCtx(), I_C_BPartner.Table_Name, 
 				whereClause.toString(), null)
 				.setParameters(parameters)
 				.setClient_ID()
-				.setOnlyActiveRecords(true);
-		int count = query.count();
-		query
-		.setLimit(limit, offset)
-		.<MBPartner>list()
+				.setOnlyActiveRecords(true)
+				.count();
+		List<Object> pageParameters = new ArrayList<Object>(parameters);
+		String pageWhereClause = pagination.addWhereClause(whereClause.toString(), pageParameters);
+		List<MBPartner> businessPartnerList = new Query(Env.getCtx(), I_C_BPartner.Table_Name, 
+				pageWhereClause, null)
+				.setParameters(pageParameters)
+				.setClient_ID()
+				.setOnlyActiveRecords(true)
+				.setOrderBy(pagination.getOrderByClause())
+				.setLimit(pagination.getFetchSize(), 0)
+				.<MBPartner>list();
+		pagination.getPage(businessPartnerList)
 		.forEach(businessPartner -> builder.addBusinessPartners(ConvertUtil.convertBusinessPartner(businessPartner)));
 		//	
 		builder.setRecordCount(count);
-		//	Set page token
-		if(count > limit) {
-			nexPageToken = RecordUtil.getPagePrefix(request.getClientRequest().getSessionUuid()) + (pageNumber + 1);
-		}
 		//	Set next page
-		builder.setNextPageToken(ValueUtil.validateNull(nexPageToken));
+		builder.setNextPageToken(ValueUtil.validateNull(pagination.getNextPageToken()));
 		return builder;
 	}
 	
@@ -910,7 +910,7 @@ public class DictionaryServiceImplementation extends DictionaryImplBase {
 					columnName = browseField.getAD_View_Column().getAD_Column().getColumnName();
 				}
 				queryToAdd.append(", ");
-				ReferenceInfo referenceInfo = ReferenceUtil.getInstance(Env.getCtx()).getReferenceInfo(displayTypeId, referenceValueId, columnName, Env.getAD_Language(Env.getCtx()), tableName);
+				ReferenceInfo referenceInfo = ReferenceUtil.getInstance().getReferenceInfo(displayTypeId, referenceValueId, columnName, Env.getAD_Language(Env.getCtx()), tableName);
 				if(referenceInfo != null) {
 					queryToAdd.append(referenceInfo.getDisplayValue(browseField.getAD_View_Column().getColumnName()));
 					joinsToAdd.append(referenceInfo.getJoinValue(columnName, tableName));
@@ -952,7 +952,7 @@ public class DictionaryServiceImplementation extends DictionaryImplBase {
 				String columnName = column.getColumnName();
 				String tableName = table.getTableName();
 				queryToAdd.append(", ");
-				ReferenceInfo referenceInfo = ReferenceUtil.getInstance(Env.getCtx()).getReferenceInfo(displayTypeId, referenceValueId, columnName, language.getAD_Language(), tableName);
+				ReferenceInfo referenceInfo = ReferenceUtil.getInstance().getReferenceInfo(displayTypeId, referenceValueId, columnName, language.getAD_Language(), tableName);
 				if(referenceInfo != null) {
 					queryToAdd.append(referenceInfo.getDisplayValue(columnName));
 					joinsToAdd.append(referenceInfo.getJoinValue(columnName, tableName));
@@ -21,6 +21,7 @@ import org.spin.base.setup.SetupLoader;
 
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptors;
 import io.grpc.netty.GrpcSslContexts;
 import io.grpc.netty.NettyServerBuilder;
 import io.netty.handler.ssl.ClientAuth;
@@ -45,15 +46,17 @@ public class EnrollmentServer {
 	  }
 	  
 	  private void start() throws IOException {
+		  //	Context by call
+		  ContextInterceptor contextInterceptor = new ContextInterceptor();
 		  if(SetupLoader.getInstance().getServer().isTlsEnabled()) {
 			  server = NettyServerBuilder.forPort(SetupLoader.getInstance().getServer().getPort())
-		                .addService(new EnrollmentServiceImplementation())
+		                .addService(ServerInterceptors.intercept(new EnrollmentServiceImplementation(), contextInterceptor))
 		                .sslContext(getSslContextBuilder().build())
 		                .build()
 		                .start();
 		  } else {
 			  server = ServerBuilder.forPort(SetupLoader.getInstance().getServer().getPort())
-				        .addService(new EnrollmentServiceImplementation())
+				        .addService(ServerInterceptors.intercept(new EnrollmentServiceImplementation(), contextInterceptor))
 				        .build()
 				        .start();
 		  }
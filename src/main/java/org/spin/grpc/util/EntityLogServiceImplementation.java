@@ -74,6 +74,7 @@ import org.spin.grpc.util.RecordChat.ModerationType;
 import org.spin.grpc.util.WorkflowProcess.WorkflowState;
 
 import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
 
 /**
@@ -162,6 +163,9 @@ public class EntityLogServiceImplementation extends EntityLogImplBase {
 			ListRecordLogsResponse.Builder entityValueList = convertRecordLogs(request);
 			responseObserver.onNext(entityValueList.build());
 			responseObserver.onCompleted();
+		} catch (StatusRuntimeException e) {
+			log.warning(e.getLocalizedMessage());
+			responseObserver.onError(e);
 		} catch (Exception e) {
 			log.severe(e.getLocalizedMessage());
 			responseObserver.onError(Status.INTERNAL
@@ -490,27 +494,26 @@ public class EntityLogServiceImplementation extends EntityLogImplBase {
 			whereClause.append("EXISTS(SELECT 1 FROM AD_Session WHERE UUID = ? AND AD_Session_ID = AD_ChangeLog.AD_Session_ID)");
 			parameters.add(request.getClientRequest().getSessionUuid());
 		}
-		//	Get page and count
-		String nexPageToken = null;
-		int pageNumber = RecordUtil.getPageNumber(request.getClientRequest().getSessionUuid(), request.getPageToken());
-		int offset = (pageNumber > 0? pageNumber - 1: 0) * RecordUtil.PAGE_SIZE;
-		int limit = (pageNumber == 0? 1: pageNumber) * RecordUtil.PAGE_SIZE;
-		Query query = new Query(Env.getCtx(), I_AD_ChangeLog.Table_Name, whereClause.toString(), null)
-				.setParameters(parameters);
-		int count = query.count();
-		List<MChangeLog> recordLogList = query
-				.setLimit(limit, offset)
-				.<MChangeLog>list();
+		//	Get page and count, a change log is identified by change log and column
+		KeysetPagination pagination = KeysetPagination.newInstance(request.getClientRequest().getSessionUuid(), request.getPageToken(), I_AD_ChangeLog.Table_Name, 
+				I_AD_ChangeLog.COLUMNNAME_AD_ChangeLog_ID, I_AD_ChangeLog.COLUMNNAME_AD_Column_ID);
+		int count = RecordCountUtil.getCount(request.getCountMode(), I_AD_ChangeLog.Table_Name, whereClause.toString(), parameters, 
+				() -> new Query(Env.getCtx(), I_AD_ChangeLog.Table_Name, whereClause.toString(), null)
+						.setParameters(parameters)
+						.count());
+		List<Object> pageParameters = new ArrayList<>(parameters);
+		String pageWhereClause = pagination.addWhereClause(whereClause.toString(), pageParameters);
+		List<MChangeLog> recordLogList = pagination.getPage(new Query(Env.getCtx(), I_AD_ChangeLog.Table_Name, pageWhereClause, null)
+				.setParameters(pageParameters)
+				.setOrderBy(pagination.getOrderByClause())
+				.setLimit(pagination.getFetchSize(), 0)
+				.<MChangeLog>list());
 		//	Convert Record Log
 		ListRecordLogsResponse.Builder builder = convertRecordLog(recordLogList);
 		//	
 		builder.setRecordCount(count);
-		//	Set page token
-		if(count > limit) {
-			nexPageToken = RecordUtil.getPagePrefix(request.getClientRequest().getSessionUuid()) + (pageNumber + 1);
-		}
 		//	Set next page
-		builder.setNextPageToken(ValueUtil.validateNull(nexPageToken));
+		builder.setNextPageToken(ValueUtil.validateNull(pagination.getNextPageToken()));
 		//	Return
 		return builder;
 	}
@@ -0,0 +1,107 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.grpc.util;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Wrapper of server stream observer that honor gRPC flow control: a message is only sent
+ * when the transport is ready, then the producer (a JDBC result set or a file) is not
+ * read faster than the client can receive.
+ * Note that the ready and cancel handlers of gRPC are called from the same serialized executor
+ * of the call, so while the service method is running the state is also polled.
+ */
+public class FlowControlledObserver<T> {
+
+	/**
+	 * Default constructor
+	 * @param responseObserver
+	 */
+	public FlowControlledObserver(StreamObserver<T> responseObserver) {
+		this.observer = (ServerCallStreamObserver<T>) responseObserver;
+		this.observer.setOnReadyHandler(() -> {
+			synchronized (lock) {
+				lock.notifyAll();
+			}
+		});
+		this.observer.setOnCancelHandler(() -> {
+			cancelled = true;
+			synchronized (lock) {
+				lock.notifyAll();
+			}
+		});
+	}
+
+	/**	Server Observer	*/
+	private ServerCallStreamObserver<T> observer;
+	/**	Lock for wait	*/
+	private final Object lock = new Object();
+	/**	Is Cancelled	*/
+	private volatile boolean cancelled = false;
+	/**	Time for check if transport is ready (milliseconds)	*/
+	private static final long WAIT_INTERVAL = 10;
+
+	/**
+	 * Verify if client cancel the call
+	 * @return
+	 */
+	public boolean isCancelled() {
+		return cancelled
+				|| observer.isCancelled();
+	}
+
+	/**
+	 * Wait until transport is ready and send value
+	 * @param value
+	 * @return false if call is cancelled
+	 * @throws InterruptedException
+	 */
+	public boolean onNext(T value) throws InterruptedException {
+		synchronized (lock) {
+			while(!isCancelled()
+					&& !observer.isReady()) {
+				lock.wait(WAIT_INTERVAL);
+			}
+		}
+		if(isCancelled()) {
+			return false;
+		}
+		observer.onNext(value);
+		return true;
+	}
+
+	/**
+	 * Complete stream
+	 */
+	public void onCompleted() {
+		if(isCancelled()) {
+			return;
+		}
+		observer.onCompleted();
+	}
+
+	/**
+	 * Send error
+	 * @param throwable
+	 */
+	public void onError(Throwable throwable) {
+		if(isCancelled()) {
+			return;
+		}
+		observer.onError(throwable);
+	}
+}
@@ -0,0 +1,248 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.grpc.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.compiere.model.MTable;
+import org.compiere.model.PO;
+import org.compiere.util.Env;
+import org.compiere.util.Util;
+
+import io.grpc.Status;
+
+/**
+ * Keyset pagination helper: instead of skip rows with offset, each page continue after the
+ * last sort key values of previous page, the values are sent to client as a signed cursor token
+ * <pre>
+ * KeysetPagination pagination = KeysetPagination.newInstance(sessionUuid, pageToken, I_C_Order.Table_Name);
+ * String whereClause = pagination.addWhereClause(baseWhereClause, parameters);
+ * List&lt;MOrder&gt; list = pagination.getPage(query.setOrderBy(pagination.getOrderByClause()).setLimit(pagination.getFetchSize()).list());
+ * String nextPageToken = pagination.getNextPageToken();
+ * </pre>
+ */
+public class KeysetPagination {
+
+	/**
+	 * Create pagination for table and key columns, if key columns are not defined then the table key columns are used
+	 * @param sessionUuid
+	 * @param pageToken
+	 * @param tableName
+	 * @param keyColumns
+	 * @return
+	 */
+	public static KeysetPagination newInstance(String sessionUuid, String pageToken, String tableName, String... keyColumns) {
+		if(keyColumns == null
+				|| keyColumns.length == 0) {
+			MTable table = MTable.get(Env.getCtx(), tableName);
+			if(table != null
+					&& table.getAD_Table_ID() > 0) {
+				keyColumns = table.getKeyColumns();
+			}
+		}
+		return new KeysetPagination(sessionUuid, pageToken, tableName, keyColumns);
+	}
+
+	/**
+	 * Default constructor
+	 * @param sessionUuid
+	 * @param pageToken
+	 * @param tableName
+	 * @param keyColumns
+	 * @throws io.grpc.StatusRuntimeException with INVALID_ARGUMENT when the cursor token is forged, stale or of other session
+	 */
+	private KeysetPagination(String sessionUuid, String pageToken, String tableName, String[] keyColumns) {
+		this.sessionUuid = sessionUuid;
+		this.tableName = tableName;
+		this.keyColumns = keyColumns == null? new String[0]: keyColumns;
+		if(RecordUtil.isCursorToken(pageToken)) {
+			List<Object> values = RecordUtil.getCursorValues(sessionUuid, tableName, pageToken);
+			//	Never restart from first page with an invalid cursor, the client would loop forever
+			if(values == null
+					|| values.size() != this.keyColumns.length) {
+				throw Status.INVALID_ARGUMENT
+					.withDescription("Invalid page token")
+					.asRuntimeException();
+			}
+			lastValues = values;
+		}
+	}
+
+	/**	Session UUID	*/
+	private String sessionUuid;
+	/**	Table Name	*/
+	private String tableName;
+	/**	Key columns used as sort key	*/
+	private String[] keyColumns;
+	/**	Last values from previous page	*/
+	private List<Object> lastValues;
+	/**	Last values of current page	*/
+	private List<Object> nextValues;
+
+	/**
+	 * Keyset pagination is only possible when the table has key columns
+	 * @return
+	 */
+	public boolean isValid() {
+		return keyColumns.length > 0;
+	}
+
+	/**
+	 * Verify if request is for first page
+	 * @return
+	 */
+	public boolean isFirstPage() {
+		return lastValues == null;
+	}
+
+	/**
+	 * Get page size
+	 * @return
+	 */
+	public int getPageSize() {
+		return RecordUtil.PAGE_SIZE;
+	}
+
+	/**
+	 * Get rows to fetch: one more than page size for know if exists a next page
+	 * @return
+	 */
+	public int getFetchSize() {
+		return getPageSize() + 1;
+	}
+
+	/**
+	 * Get key columns
+	 * @return
+	 */
+	public String[] getKeyColumns() {
+		return keyColumns;
+	}
+
+	/**
+	 * Get Order By clause for sort keys
+	 * @return
+	 */
+	public String getOrderByClause() {
+		StringBuffer orderBy = new StringBuffer();
+		for(String keyColumn : keyColumns) {
+			if(orderBy.length() > 0) {
+				orderBy.append(", ");
+			}
+			orderBy.append(getQualifiedColumnName(keyColumn));
+		}
+		return orderBy.toString();
+	}
+
+	/**
+	 * Get predicate for continue after last sort key: (Key1, Key2) > (?, ?) expanded for be supported by all databases
+	 * @param parameters
+	 * @return empty string for first page
+	 */
+	public String getWhereClause(List<Object> parameters) {
+		if(isFirstPage()
+				|| !isValid()) {
+			return "";
+		}
+		StringBuffer whereClause = new StringBuffer("(");
+		for(int index = 0; index < keyColumns.length; index++) {
+			if(index > 0) {
+				whereClause.append(" OR ");
+			}
+			whereClause.append("(");
+			for(int previousIndex = 0; previousIndex < index; previousIndex++) {
+				whereClause.append(getQualifiedColumnName(keyColumns[previousIndex])).append(" = ? AND ");
+				parameters.add(lastValues.get(previousIndex));
+			}
+			whereClause.append(getQualifiedColumnName(keyColumns[index])).append(" > ?");
+			parameters.add(lastValues.get(index));
+			whereClause.append(")");
+		}
+		whereClause.append(")");
+		return whereClause.toString();
+	}
+
+	/**
+	 * Add keyset predicate to a where clause
+	 * @param whereClause
+	 * @param parameters
+	 * @return
+	 */
+	public String addWhereClause(String whereClause, List<Object> parameters) {
+		String keysetWhereClause = getWhereClause(parameters);
+		if(Util.isEmpty(keysetWhereClause)) {
+			return whereClause;
+		}
+		if(Util.isEmpty(whereClause)) {
+			return keysetWhereClause;
+		}
+		return "(" + whereClause + ") AND " + keysetWhereClause;
+	}
+
+	/**
+	 * Trim the fetched records to page size and keep the sort key values of last record
+	 * @param records
+	 * @return
+	 */
+	public <T extends PO> List<T> getPage(List<T> records) {
+		nextValues = null;
+		if(records == null
+				|| records.size() <= getPageSize()) {
+			return records;
+		}
+		List<T> page = new ArrayList<T>(records.subList(0, getPageSize()));
+		PO lastRecord = page.get(page.size() - 1);
+		List<Object> values = new ArrayList<>();
+		Arrays.asList(keyColumns).forEach(keyColumn -> values.add(lastRecord.get_Value(keyColumn)));
+		setNextValues(values);
+		return page;
+	}
+
+	/**
+	 * Set sort key values of last record of page when exists a next page
+	 * @param values
+	 */
+	public void setNextValues(List<Object> values) {
+		nextValues = values;
+	}
+
+	/**
+	 * Get next page token, null if does not exists more records
+	 * @return
+	 */
+	public String getNextPageToken() {
+		if(nextValues == null) {
+			return null;
+		}
+		return RecordUtil.getCursorToken(sessionUuid, tableName, nextValues);
+	}
+
+	/**
+	 * Get column name with table name
+	 * @param columnName
+	 * @return
+	 */
+	private String getQualifiedColumnName(String columnName) {
+		return tableName + "." + columnName;
+	}
+
+	@Override
+	public String toString() {
+		return "KeysetPagination [tableName=" + tableName + ", keyColumns=" + Arrays.toString(keyColumns) + ", lastValues=" + lastValues + "]";
+	}
+}
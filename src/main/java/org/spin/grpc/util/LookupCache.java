@@ -0,0 +1,255 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.grpc.util;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.compiere.model.I_AD_Org;
+import org.compiere.model.I_AD_Ref_List;
+import org.compiere.model.I_C_Currency;
+import org.compiere.model.I_C_DocType;
+import org.compiere.model.I_C_UOM;
+import org.compiere.model.I_M_Warehouse;
+import org.compiere.model.MClient;
+import org.compiere.model.ModelValidationEngine;
+import org.compiere.model.ModelValidator;
+import org.compiere.model.PO;
+import org.compiere.util.CCache;
+import org.compiere.util.Env;
+
+import com.google.protobuf.Message;
+
+/**
+ * Cache of lookup results: a cache by base table of lookup, the cache name start with table name
+ * then it is reset when a record of table is changed. The save of a new record does not reset cache
+ * then a model validator reset it for new and deleted records. The entries of all tables are limited by a
+ * global LRU index and each table have a time to live, the keys of a table are removed from index
+ * when the cache of table is reset or expired. Empty results are not cached.
+ */
+public class LookupCache {
+	
+	/**	Maximum entries for all tables	*/
+	private static final int MAX_ENTRIES = 5000;
+	/**	Default time to live (minutes)	*/
+	private static final int DEFAULT_EXPIRE_MINUTES = 10;
+	/**	Time to live of tables that almost never change (minutes)	*/
+	private static final int STATIC_EXPIRE_MINUTES = 60;
+	/**	Time to live by table	*/
+	private static final Map<String, Integer> expireMinutesByTable = new HashMap<>();
+	/**	Cache by table	*/
+	private static final Map<String, CCache<String, Message>> cacheByTable = new ConcurrentHashMap<>();
+	/**	Key and table, access order for remove the least recently used	*/
+	private static final LinkedHashMap<String, String> index = new LinkedHashMap<>(16, 0.75f, true);
+	/**	Table and client with validator of new records	*/
+	private static final Set<String> validatedTables = ConcurrentHashMap.newKeySet();
+	
+	static {
+		expireMinutesByTable.put(I_AD_Ref_List.Table_Name, STATIC_EXPIRE_MINUTES);
+		expireMinutesByTable.put(I_AD_Org.Table_Name, STATIC_EXPIRE_MINUTES);
+		expireMinutesByTable.put(I_C_DocType.Table_Name, STATIC_EXPIRE_MINUTES);
+		expireMinutesByTable.put(I_C_Currency.Table_Name, STATIC_EXPIRE_MINUTES);
+		expireMinutesByTable.put(I_C_UOM.Table_Name, STATIC_EXPIRE_MINUTES);
+		expireMinutesByTable.put(I_M_Warehouse.Table_Name, STATIC_EXPIRE_MINUTES);
+	}
+	
+	/**
+	 * Get key of lookup: type of result, SQL with access, parameters, role and language
+	 * @param type
+	 * @param sql
+	 * @param parameters
+	 * @return
+	 */
+	public static String getKey(String type, String sql, List<Object> parameters) {
+		StringBuffer key = new StringBuffer(type).append("|")
+				.append(Env.getAD_Client_ID(Env.getCtx())).append("|")
+				.append(Env.getAD_Role_ID(Env.getCtx())).append("|")
+				.append(Env.getAD_Language(Env.getCtx())).append("|")
+				.append(sql);
+		if(parameters != null) {
+			parameters.forEach(parameter -> key.append("|").append(parameter));
+		}
+		return key.toString();
+	}
+	
+	/**
+	 * Get cached result
+	 * @param tableName base table of lookup
+	 * @param key
+	 * @return null if it is not cached
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends Message> T get(String tableName, String key) {
+		if(tableName == null) {
+			return null;
+		}
+		CCache<String, Message> cache = getCache(tableName);
+		Message value = null;
+		synchronized (cache) {
+			value = cache.get(key);
+		}
+		if(value != null) {
+			synchronized (index) {
+				index.get(key);
+			}
+		}
+		return (T) value;
+	}
+	
+	/**
+	 * Put result in cache and remove the least recently used when the cache is full, a empty result is not cached
+	 * @param tableName base table of lookup
+	 * @param key
+	 * @param value
+	 */
+	public static void put(String tableName, String key, Message value) {
+		if(tableName == null
+				|| value == null
+				|| value.equals(value.getDefaultInstanceForType())) {
+			return;
+		}
+		addValidator(tableName, Env.getAD_Client_ID(Env.getCtx()));
+		CCache<String, Message> cache = getCache(tableName);
+		synchronized (cache) {
+			cache.put(key, value);
+		}
+		//	The caches of evicted keys are changed after release index, a reset of cache lock the index
+		List<Map.Entry<String, String>> evicted = new ArrayList<>();
+		synchronized (index) {
+			index.put(key, tableName);
+			Iterator<Map.Entry<String, String>> iterator = index.entrySet().iterator();
+			while(index.size() > MAX_ENTRIES
+					&& iterator.hasNext()) {
+				Map.Entry<String, String> eldest = iterator.next();
+				evicted.add(new AbstractMap.SimpleEntry<>(eldest));
+				iterator.remove();
+			}
+		}
+		evicted.forEach(eldest -> {
+			CCache<String, Message> eldestCache = cacheByTable.get(eldest.getValue());
+			if(eldestCache != null) {
+				synchronized (eldestCache) {
+					eldestCache.remove(eldest.getKey());
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Reset cache of table
+	 * @param tableName
+	 */
+	public static void reset(String tableName) {
+		CCache<String, Message> cache = cacheByTable.get(tableName);
+		if(cache != null) {
+			synchronized (cache) {
+				cache.reset();
+			}
+		}
+	}
+	
+	/**
+	 * Add a validator that reset cache of table when a record is created or deleted, only once by table and client
+	 * (the model validators are registered by client)
+	 * @param tableName
+	 * @param clientId
+	 */
+	private static void addValidator(String tableName, int clientId) {
+		if(!validatedTables.add(tableName + "|" + clientId)) {
+			return;
+		}
+		ModelValidationEngine.get().addModelChange(tableName, new LookupValidator(tableName, clientId));
+	}
+	
+	/**
+	 * Remove keys of table from index
+	 * @param tableName
+	 */
+	private static void removeIndex(String tableName) {
+		synchronized (index) {
+			index.values().removeIf(tableName::equals);
+		}
+	}
+	
+	/**
+	 * Get cache of table, a reset by cache management or expiration also remove the keys from index
+	 * @param tableName
+	 * @return
+	 */
+	private static CCache<String, Message> getCache(String tableName) {
+		return cacheByTable.computeIfAbsent(tableName, key -> new CCache<String, Message>(key + "-Lookup-gRPC-Service", 30, expireMinutesByTable.getOrDefault(key, DEFAULT_EXPIRE_MINUTES)) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			public int reset() {
+				int size = super.reset();
+				removeIndex(key);
+				return size;
+			}
+		});
+	}
+	
+	/**
+	 * Model validator for reset cache of table with new and deleted records
+	 */
+	private static class LookupValidator implements ModelValidator {
+		LookupValidator(String tableName, int clientId) {
+			this.tableName = tableName;
+			this.clientId = clientId;
+		}
+		
+		/**	Table	*/
+		private final String tableName;
+		/**	Client	*/
+		private final int clientId;
+		
+		@Override
+		public void initialize(ModelValidationEngine engine, MClient client) {
+			
+		}
+		
+		@Override
+		public int getAD_Client_ID() {
+			return clientId;
+		}
+		
+		@Override
+		public String login(int AD_Org_ID, int AD_Role_ID, int AD_User_ID) {
+			return null;
+		}
+		
+		@Override
+		public String modelChange(PO po, int type) throws Exception {
+			if(type == TYPE_AFTER_NEW
+					|| type == TYPE_AFTER_DELETE) {
+				reset(tableName);
+			}
+			return null;
+		}
+		
+		@Override
+		public String docValidate(PO po, int timing) {
+			return null;
+		}
+	}
+}
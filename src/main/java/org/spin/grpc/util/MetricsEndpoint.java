@@ -0,0 +1,201 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.grpc.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.compiere.util.CLogger;
+import org.compiere.util.Util;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP endpoint for scrape metrics in Prometheus text format: <code>GET /metrics</code>.
+ * Publish the metrics of {@link MetricsInterceptor} and the gauges registered by other components
+ */
+public class MetricsEndpoint {
+	
+	/**	Percentiles published	*/
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+	/**	Gauges by name (with labels), with help	*/
+	private static final Map<String, Gauge> gauges = new LinkedHashMap<>();
+	/**	HTTP Server	*/
+	private static HttpServer server;
+	/**	Logger			*/
+	private static CLogger log = CLogger.getCLogger(MetricsEndpoint.class);
+	
+	/**
+	 * Register a gauge
+	 * @param name metric name, can include labels: name{label="value"}
+	 * @param help
+	 * @param value
+	 */
+	public static void registerGauge(String name, String help, Supplier<Number> value) {
+		synchronized (gauges) {
+			gauges.put(name, new Gauge(help, value));
+		}
+	}
+	
+	/**
+	 * Register gauges of server: cached sessions, connection pool and lanes of admission control
+	 * @param admissionControlInterceptor
+	 */
+	public static void registerServerGauges(AdmissionControlInterceptor admissionControlInterceptor) {
+		registerGauge("adempiere_session_cache_size", "Sessions in context cache", ContextManager::getSessionCacheSize);
+		registerGauge("adempiere_session_cache_bytes", "Approximate size of context cache", ContextManager::getSessionCacheBytes);
+		ConnectionPoolUtil.registerGauges();
+		if(admissionControlInterceptor == null) {
+			return;
+		}
+		admissionControlInterceptor.getLanes().forEach(lane -> 
+			registerGauge("grpc_lane_running{lane=\"" + lane.getName() + "\"}", "Calls running by lane", lane::getRunning));
+		admissionControlInterceptor.getLanes().forEach(lane -> 
+			registerGauge("grpc_lane_waiting{lane=\"" + lane.getName() + "\"}", "Calls waiting by lane", lane::getWaiting));
+		admissionControlInterceptor.getLanes().forEach(lane -> 
+			registerGauge("grpc_lane_rejected{lane=\"" + lane.getName() + "\"}", "Calls rejected by lane", lane::getRejected));
+	}
+	
+	/**
+	 * Start endpoint on port, only once. The endpoint is not authenticated then it is bound to loopback
+	 * address when a host is not defined
+	 * @param host
+	 * @param port
+	 * @throws IOException
+	 */
+	public static synchronized void start(String host, int port) throws IOException {
+		if(server != null
+				|| port <= 0) {
+			return;
+		}
+		InetAddress address = Util.isEmpty(host)? InetAddress.getLoopbackAddress(): InetAddress.getByName(host);
+		server = HttpServer.create(new InetSocketAddress(address, port), 0);
+		server.createContext("/metrics", exchange -> {
+			byte[] response = getMetrics().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream output = exchange.getResponseBody()) {
+				output.write(response);
+			}
+		});
+		server.start();
+		log.info("Metrics published on " + address.getHostAddress() + ":" + port);
+	}
+	
+	/**
+	 * Stop endpoint
+	 */
+	public static synchronized void stop() {
+		if(server != null) {
+			server.stop(0);
+			server = null;
+		}
+	}
+	
+	/**
+	 * Get metrics as text
+	 * @return
+	 */
+	public static String getMetrics() {
+		StringBuffer metrics = new StringBuffer();
+		metrics.append("# HELP grpc_server_handled_total Calls finished by method and status code\n")
+			.append("# TYPE grpc_server_handled_total counter\n");
+		MetricsInterceptor.getMetrics().forEach((method, methodMetrics) -> {
+			methodMetrics.getCallsByCode().forEach((code, calls) -> {
+				metrics.append("grpc_server_handled_total{method=\"").append(method)
+					.append("\",code=\"").append(code.name()).append("\"} ").append(calls.sum()).append("\n");
+			});
+		});
+		metrics.append("# HELP grpc_server_in_flight Calls running by method\n")
+			.append("# TYPE grpc_server_in_flight gauge\n");
+		MetricsInterceptor.getMetrics().forEach((method, methodMetrics) -> {
+			metrics.append("grpc_server_in_flight{method=\"").append(method).append("\"} ").append(methodMetrics.getInFlight()).append("\n");
+		});
+		metrics.append("# HELP grpc_server_latency_seconds Latency of calls by method\n")
+			.append("# TYPE grpc_server_latency_seconds summary\n");
+		MetricsInterceptor.getMetrics().forEach((method, methodMetrics) -> {
+			MetricsInterceptor.LatencyHistogram latency = methodMetrics.getLatency();
+			for(double percentile : PERCENTILES) {
+				metrics.append("grpc_server_latency_seconds{method=\"").append(method)
+					.append("\",quantile=\"").append(percentile / 100).append("\"} ")
+					.append(getSeconds(latency.getPercentile(percentile))).append("\n");
+			}
+			metrics.append("grpc_server_latency_seconds_sum{method=\"").append(method).append("\"} ").append(getSeconds(latency.getSum())).append("\n");
+			metrics.append("grpc_server_latency_seconds_count{method=\"").append(method).append("\"} ").append(latency.getCount()).append("\n");
+		});
+		metrics.append("# HELP grpc_server_sql_statements_total SQL statements executed by method\n")
+			.append("# TYPE grpc_server_sql_statements_total counter\n");
+		MetricsInterceptor.getMetrics().forEach((method, methodMetrics) -> {
+			metrics.append("grpc_server_sql_statements_total{method=\"").append(method).append("\"} ").append(methodMetrics.getStatements()).append("\n");
+		});
+		metrics.append("# HELP grpc_server_sql_seconds_total Time of SQL statements by method\n")
+			.append("# TYPE grpc_server_sql_seconds_total counter\n");
+		MetricsInterceptor.getMetrics().forEach((method, methodMetrics) -> {
+			metrics.append("grpc_server_sql_seconds_total{method=\"").append(method).append("\"} ").append(methodMetrics.getStatementsNanos() / 1_000_000_000.0).append("\n");
+		});
+		synchronized (gauges) {
+			String lastName = null;
+			for(Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+				String name = entry.getKey();
+				int labelsIndex = name.indexOf('{');
+				String baseName = labelsIndex > 0? name.substring(0, labelsIndex): name;
+				if(!baseName.equals(lastName)) {
+					metrics.append("# HELP ").append(baseName).append(" ").append(entry.getValue().help).append("\n")
+						.append("# TYPE ").append(baseName).append(" gauge\n");
+					lastName = baseName;
+				}
+				Number value;
+				try {
+					value = entry.getValue().value.get();
+				} catch (Exception e) {
+					log.warning(name + ": " + e.getLocalizedMessage());
+					continue;
+				}
+				metrics.append(name).append(" ").append(value == null? 0: value).append("\n");
+			}
+		}
+		return metrics.toString();
+	}
+	
+	/**
+	 * Convert microseconds to seconds
+	 * @param micros
+	 * @return
+	 */
+	private static double getSeconds(long micros) {
+		return micros / 1_000_000.0;
+	}
+	
+	/**
+	 * Gauge: help and function for value
+	 */
+	private static class Gauge {
+		Gauge(String help, Supplier<Number> value) {
+			this.help = help;
+			this.value = value;
+		}
+		/**	Help	*/
+		private String help;
+		/**	Value	*/
+		private Supplier<Number> value;
+	}
+}
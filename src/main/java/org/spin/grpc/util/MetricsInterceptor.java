@@ -0,0 +1,303 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.grpc.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import io.grpc.Context;
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+/**
+ * Interceptor that record metrics by method: calls by status code, calls in flight, a histogram of latency
+ * and the SQL statements executed (see {@link StatementMetrics}).
+ * It must be the last added interceptor (it is called first) for include the time waiting admission.
+ * The metrics are published by {@link MetricsEndpoint}
+ */
+public class MetricsInterceptor implements ServerInterceptor {
+	
+	/**	Metrics by full method name	*/
+	private static final Map<String, MethodMetrics> metricsByMethod = new ConcurrentHashMap<>();
+	
+	/**
+	 * Get metrics of all methods called
+	 * @return
+	 */
+	public static Map<String, MethodMetrics> getMetrics() {
+		return metricsByMethod;
+	}
+	
+	@Override
+	public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+		String methodName = call.getMethodDescriptor().getFullMethodName();
+		MethodMetrics metrics = metricsByMethod.computeIfAbsent(methodName, key -> new MethodMetrics());
+		long startTime = System.nanoTime();
+		Context callContext = Context.current();
+		AtomicBoolean isRecorded = new AtomicBoolean(false);
+		StatementMetrics.CallStatements statements = new StatementMetrics.CallStatements();
+		metrics.inFlight.increment();
+		Consumer<Status.Code> recorder = code -> {
+			if(isRecorded.compareAndSet(false, true)) {
+				metrics.record(code, System.nanoTime() - startTime, statements);
+				statements.warnRepeated(methodName);
+			}
+		};
+		ServerCall<ReqT, RespT> recordedCall = new SimpleForwardingServerCall<ReqT, RespT>(call) {
+			@Override
+			public void close(Status status, Metadata trailers) {
+				recorder.accept(status.getCode());
+				super.close(status, trailers);
+			}
+		};
+		ServerCall.Listener<ReqT> delegate;
+		StatementMetrics.CallStatements previous = StatementMetrics.bind(statements);
+		try {
+			delegate = next.startCall(recordedCall, headers);
+		} catch (RuntimeException e) {
+			recorder.accept(Status.fromThrowable(e).getCode());
+			throw e;
+		} finally {
+			StatementMetrics.restore(previous);
+		}
+		return new SimpleForwardingServerCallListener<ReqT>(delegate) {
+			@Override
+			public void onMessage(ReqT message) {
+				runWithStatements(statements, () -> super.onMessage(message));
+			}
+			
+			@Override
+			public void onHalfClose() {
+				runWithStatements(statements, () -> super.onHalfClose());
+			}
+			
+			@Override
+			public void onReady() {
+				runWithStatements(statements, () -> super.onReady());
+			}
+			
+			@Override
+			public void onComplete() {
+				runWithStatements(statements, () -> super.onComplete());
+			}
+			
+			@Override
+			public void onCancel() {
+				//	Cancelled by client or deadline, the call is not closed by service
+				recorder.accept(isDeadlineExceeded(callContext)? Status.Code.DEADLINE_EXCEEDED: Status.Code.CANCELLED);
+				runWithStatements(statements, () -> super.onCancel());
+			}
+		};
+	}
+	
+	/**
+	 * Verify if the call is cancelled because its deadline is expired
+	 * @param callContext
+	 * @return
+	 */
+	private static boolean isDeadlineExceeded(Context callContext) {
+		return callContext.cancellationCause() instanceof TimeoutException
+				|| (callContext.getDeadline() != null && callContext.getDeadline().isExpired());
+	}
+	
+	/**
+	 * Run a callback of call with the statement statistics of call bound to thread
+	 * @param statements
+	 * @param callback
+	 */
+	private static void runWithStatements(StatementMetrics.CallStatements statements, Runnable callback) {
+		StatementMetrics.CallStatements previous = StatementMetrics.bind(statements);
+		try {
+			callback.run();
+		} finally {
+			StatementMetrics.restore(previous);
+		}
+	}
+	
+	/**
+	 * Metrics of a method
+	 */
+	public static class MethodMetrics {
+		/**	Calls by status code	*/
+		private final Map<Status.Code, LongAdder> callsByCode = new ConcurrentHashMap<>();
+		/**	Calls running	*/
+		private final LongAdder inFlight = new LongAdder();
+		/**	Latency	*/
+		private final LatencyHistogram latency = new LatencyHistogram();
+		/**	SQL statements executed	*/
+		private final LongAdder statements = new LongAdder();
+		/**	Time of SQL statements (nanoseconds)	*/
+		private final LongAdder statementsNanos = new LongAdder();
+		
+		/**
+		 * Record a finished call
+		 * @param code
+		 * @param elapsedNanos
+		 * @param callStatements
+		 */
+		void record(Status.Code code, long elapsedNanos, StatementMetrics.CallStatements callStatements) {
+			inFlight.decrement();
+			callsByCode.computeIfAbsent(code, key -> new LongAdder()).increment();
+			latency.record(elapsedNanos / 1000);
+			statements.add(callStatements.getCount());
+			statementsNanos.add(callStatements.getElapsedNanos());
+		}
+		
+		/**
+		 * @return SQL statements executed
+		 */
+		public long getStatements() {
+			return statements.sum();
+		}
+		
+		/**
+		 * @return time of SQL statements (nanoseconds)
+		 */
+		public long getStatementsNanos() {
+			return statementsNanos.sum();
+		}
+		
+		/**
+		 * @return calls finished by status code
+		 */
+		public Map<Status.Code, LongAdder> getCallsByCode() {
+			return callsByCode;
+		}
+		
+		/**
+		 * @return calls running
+		 */
+		public long getInFlight() {
+			return inFlight.sum();
+		}
+		
+		/**
+		 * @return histogram of latency (microseconds)
+		 */
+		public LatencyHistogram getLatency() {
+			return latency;
+		}
+	}
+	
+	/**
+	 * Histogram of latency in microseconds with log-linear buckets (as HDR histogram): each power of two
+	 * is divided in {@link #SUB_BUCKETS} buckets, then the relative error of a percentile is lower than 13%
+	 */
+	public static class LatencyHistogram {
+		/**	Linear buckets for each power of two	*/
+		private static final int SUB_BUCKETS = 8;
+		/**	Bits of sub buckets	*/
+		private static final int SUB_BUCKET_BITS = 3;
+		/**	Powers of two: up to 2^40 microseconds	*/
+		private static final int MAGNITUDES = 40;
+		/**	Counts by bucket	*/
+		private final AtomicLongArray counts = new AtomicLongArray(MAGNITUDES * SUB_BUCKETS);
+		/**	Total of values	*/
+		private final LongAdder sum = new LongAdder();
+		/**	Quantity of values	*/
+		private final LongAdder count = new LongAdder();
+		
+		/**
+		 * Get bucket of a value
+		 * @param value
+		 * @return
+		 */
+		private static int getBucket(long value) {
+			if(value < SUB_BUCKETS) {
+				return (int) Math.max(0, value);
+			}
+			int magnitude = 63 - Long.numberOfLeadingZeros(value);
+			int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+			int bucket = (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+			return Math.min(bucket, MAGNITUDES * SUB_BUCKETS - 1);
+		}
+		
+		/**
+		 * Get highest value of a bucket
+		 * @param bucket
+		 * @return
+		 */
+		private static long getBucketLimit(int bucket) {
+			if(bucket < SUB_BUCKETS) {
+				return bucket;
+			}
+			int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+			int subBucket = bucket % SUB_BUCKETS;
+			long width = 1L << (magnitude - SUB_BUCKET_BITS);
+			return (1L << magnitude) + (subBucket + 1) * width - 1;
+		}
+		
+		/**
+		 * Record a value
+		 * @param micros
+		 */
+		public void record(long micros) {
+			counts.incrementAndGet(getBucket(micros));
+			sum.add(micros);
+			count.increment();
+		}
+		
+		/**
+		 * @return quantity of values
+		 */
+		public long getCount() {
+			return count.sum();
+		}
+		
+		/**
+		 * @return total of values (microseconds)
+		 */
+		public long getSum() {
+			return sum.sum();
+		}
+		
+		/**
+		 * Get value of a percentile
+		 * @param percentile between 0 and 100
+		 * @return upper limit of bucket (microseconds)
+		 */
+		public long getPercentile(double percentile) {
+			long[] snapshot = new long[counts.length()];
+			long total = 0;
+			for(int bucket = 0; bucket < snapshot.length; bucket++) {
+				snapshot[bucket] = counts.get(bucket);
+				total += snapshot[bucket];
+			}
+			if(total == 0) {
+				return 0;
+			}
+			long rank = (long) Math.ceil(percentile / 100 * total);
+			long accumulated = 0;
+			for(int bucket = 0; bucket < snapshot.length; bucket++) {
+				accumulated += snapshot[bucket];
+				if(accumulated >= rank) {
+					return getBucketLimit(bucket);
+				}
+			}
+			return getBucketLimit(snapshot.length - 1);
+		}
+	}
+}
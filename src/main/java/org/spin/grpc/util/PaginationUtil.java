@@ -0,0 +1,75 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.grpc.util;
+
+import org.compiere.util.DB;
+import org.compiere.util.Util;
+import org.spin.base.setup.SetupLoader;
+
+/**
+ * Pagination of SQL for database dialect: the sort and the limit are applied together by database.
+ * PostgreSQL: ORDER BY ... LIMIT n OFFSET m
+ * Oracle: ORDER BY ... OFFSET m ROWS FETCH NEXT n ROWS ONLY
+ */
+public class PaginationUtil {
+
+	/**
+	 * Verify if database is Oracle from setup, if the setup is not loaded then is used the current connection
+	 * @return
+	 */
+	public static boolean isOracle() {
+		SetupLoader setup = SetupLoader.getInstance();
+		if(setup != null
+				&& setup.getDatabase() != null
+				&& !Util.isEmpty(setup.getDatabase().getType())) {
+			return setup.getDatabase().getType().equals(org.compiere.db.Database.DB_ORACLE);
+		}
+		return DB.isOracle();
+	}
+
+	/**
+	 * Add Order By and limit to SQL
+	 * @param sql
+	 * @param orderByClause order by without ORDER BY keyword, can be empty
+	 * @param limit rows to read, 0 without limit
+	 * @param offset rows to skip
+	 * @return
+	 */
+	public static String getQueryWithLimit(String sql, String orderByClause, int limit, int offset) {
+		StringBuffer query = new StringBuffer(sql);
+		if(!Util.isEmpty(orderByClause)) {
+			query.append(" ORDER BY ").append(orderByClause);
+		}
+		if(limit <= 0
+				&& offset <= 0) {
+			return query.toString();
+		}
+		if(isOracle()) {
+			query.append(" OFFSET ").append(Math.max(offset, 0)).append(" ROWS");
+			if(limit > 0) {
+				query.append(" FETCH NEXT ").append(limit).append(" ROWS ONLY");
+			}
+		} else {
+			if(limit > 0) {
+				query.append(" LIMIT ").append(limit);
+			}
+			if(offset > 0) {
+				query.append(" OFFSET ").append(offset);
+			}
+		}
+		return query.toString();
+	}
+}
@@ -69,6 +69,7 @@ import org.compiere.util.Util;
 import org.spin.grpc.util.StoreGrpc.StoreImplBase;
 
 import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
 
 /**
@@ -335,6 +336,9 @@ public class PointOfSalesServiceImplementation extends StoreImplBase {
 			ListOrdersResponse.Builder ordersList = listOrders(request);
 			responseObserver.onNext(ordersList.build());
 			responseObserver.onCompleted();
+		} catch (StatusRuntimeException e) {
+			log.warning(e.getLocalizedMessage());
+			responseObserver.onError(e);
 		} catch (Exception e) {
 			log.severe(e.getLocalizedMessage());
 			responseObserver.onError(Status.INTERNAL
@@ -427,10 +431,7 @@ public class PointOfSalesServiceImplementation extends StoreImplBase {
 			throw new AdempiereException("@C_POS_ID@ @NotFound@");
 		}
 		ListOrdersResponse.Builder builder = ListOrdersResponse.newBuilder();
-		String nexPageToken = null;
-		int pageNumber = RecordUtil.getPageNumber(request.getClientRequest().getSessionUuid(), request.getPageToken());
-		int offset = (pageNumber > 0? pageNumber - 1: 0) * RecordUtil.PAGE_SIZE;
-		int limit = (pageNumber == 0? 1: pageNumber) * RecordUtil.PAGE_SIZE;
+		KeysetPagination pagination = KeysetPagination.newInstance(request.getClientRequest().getSessionUuid(), request.getPageToken(), I_C_Order.Table_Name, I_C_Order.COLUMNNAME_C_Order_ID);
 		//	Dynamic where clause
 		StringBuffer whereClause = new StringBuffer();
 		//	Parameters
@@ -498,25 +499,29 @@ public class PointOfSalesServiceImplementation extends StoreImplBase {
 			parameters.add(salesRepresentativeId);
 		}
 		//	Get Product list
-		Query query = new Query(Env.getCtx(), I_C_Order.Table_Name, whereClause.toString(), null)
-				.setParameters(parameters)
+		int count = RecordCountUtil.getCount(request.getCountMode(), I_C_Order.Table_Name, whereClause.toString(), parameters, 
+				() -> new Query(Env.getCtx(), I_C_Order.Table_Name, whereClause.toString(), null)
+						.setParameters(parameters)
+						.setClient_ID()
+						.setOnlyActiveRecords(true)
+						.count());
+		List<Object> pageParameters = new ArrayList<Object>(parameters);
+		String pageWhereClause = pagination.addWhereClause(whereClause.toString(), pageParameters);
+		List<MOrder> orderList = new Query(Env.getCtx(), I_C_Order.Table_Name, pageWhereClause, null)
+				.setParameters(pageParameters)
 				.setClient_ID()
-				.setOnlyActiveRecords(true);
-		int count = query.count();
-		query
-		.setLimit(limit, offset)
-		.<MOrder>list()
+				.setOnlyActiveRecords(true)
+				.setOrderBy(pagination.getOrderByClause())
+				.setLimit(pagination.getFetchSize(), 0)
+				.<MOrder>list();
+		pagination.getPage(orderList)
 		.forEach(order -> {
 			builder.addOrders(convertOrder(order));
 		});
 		//	
 		builder.setRecordCount(count);
-		//	Set page token
-		if(count > limit) {
-			nexPageToken = RecordUtil.getPagePrefix(request.getClientRequest().getSessionUuid()) + (pageNumber + 1);
-		}
 		//	Set next page
-		builder.setNextPageToken(ValueUtil.validateNull(nexPageToken));
+		builder.setNextPageToken(ValueUtil.validateNull(pagination.getNextPageToken()));
 		return builder;
 	}
 	
@@ -1433,15 +1438,26 @@ public class PointOfSalesServiceImplementation extends StoreImplBase {
 		List<Object> parameters = new ArrayList<Object>();
 		//	For search value
 		if(!Util.isEmpty(request.getSearchValue())) {
-			whereClause.append("("
-				+ "UPPER(Value) LIKE '%' || UPPER(?) || '%'"
-				+ "OR UPPER(Name) LIKE '%' || UPPER(?) || '%'"
-				+ "OR UPPER(UPC) = UPPER(?)"
-				+ "OR UPPER(SKU) = UPPER(?)"
-				+ ")");
-			//	Add parameters
-			parameters.add(request.getSearchValue());
-			parameters.add(request.getSearchValue());
+			//	Candidates from search index
+			String indexWhereClause = TrigramIndex.getInstance().getWhereClause(I_M_Product.Table_Name, request.getSearchValue(), parameters, 
+					I_M_Product.COLUMNNAME_Value, I_M_Product.COLUMNNAME_Name);
+			if(indexWhereClause != null) {
+				whereClause.append("("
+					+ indexWhereClause
+					+ " OR UPPER(UPC) = UPPER(?)"
+					+ " OR UPPER(SKU) = UPPER(?)"
+					+ ")");
+			} else {
+				whereClause.append("("
+					+ "UPPER(Value) LIKE '%' || UPPER(?) || '%'"
+					+ "OR UPPER(Name) LIKE '%' || UPPER(?) || '%'"
+					+ "OR UPPER(UPC) = UPPER(?)"
+					+ "OR UPPER(SKU) = UPPER(?)"
+					+ ")");
+				//	Add parameters
+				parameters.add(request.getSearchValue());
+				parameters.add(request.getSearchValue());
+			}
 			parameters.add(request.getSearchValue());
 			parameters.add(request.getSearchValue());
 		} 
@@ -1469,16 +1485,19 @@ public class PointOfSalesServiceImplementation extends StoreImplBase {
 				.setParameters(parameters)
 				.setClient_ID()
 				.setOnlyActiveRecords(true);
-		int count = query.count();
-		query
-		.setLimit(limit, offset)
-		.<MProduct>list()
-		.forEach(product -> {
+		int count = RecordCountUtil.getCount(request.getCountMode(), I_M_Product.Table_Name, whereClause.toString(), parameters, () -> query.count());
+		List<MProduct> productList = query
+				.setLimit(limit, offset)
+				.<MProduct>list();
+		//	Same for all products
+		int businessPartnerId = RecordUtil.getIdFromUuid(I_C_BPartner.Table_Name, request.getBusinessPartnerUuid(), null);
+		int warehouseId = RecordUtil.getIdFromUuid(I_M_Warehouse.Table_Name, request.getWarehouseUuid(), null);
+		productList.forEach(product -> {
 			ProductPrice.Builder productPrice = convertProductPrice(
 					product, 
-					RecordUtil.getIdFromUuid(I_C_BPartner.Table_Name, request.getBusinessPartnerUuid(), null), 
+					businessPartnerId, 
 					priceList, 
-					RecordUtil.getIdFromUuid(I_M_Warehouse.Table_Name, request.getWarehouseUuid(), null), 
+					warehouseId, 
 					validFrom, 
 					null);
 			if(productPrice.hasPriceList()
@@ -1490,7 +1509,7 @@ public class PointOfSalesServiceImplementation extends StoreImplBase {
 		//	
 		builder.setRecordCount(count);
 		//	Set page token
-		if(count > limit) {
+		if(RecordCountUtil.hasNextPage(request.getCountMode(), count, limit, productList.size())) {
 			nexPageToken = RecordUtil.getPagePrefix(request.getClientRequest().getSessionUuid()) + (pageNumber + 1);
 		}
 		//	Set next page
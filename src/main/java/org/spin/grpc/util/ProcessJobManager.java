@@ -0,0 +1,361 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.grpc.util;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.compiere.process.ProcessInfo;
+import org.compiere.util.CLogger;
+import org.compiere.util.Env;
+
+import io.grpc.Status;
+
+/**
+ * Manager of process jobs: the process is executed by a bounded executor outside of gRPC threads,
+ * the client get a job UUID and can poll or subscribe to job progress. Subscribers are listeners
+ * notified each {@link #PROGRESS_INTERVAL} milliseconds and when job is finished, then no thread is
+ * waiting for a job. A session can not have more than {@link #MAX_JOBS_BY_SESSION} jobs queued or running.
+ * The finished jobs are purged by the same scheduler after expiration or when the retained jobs
+ * (and their output) exceed {@link #MAX_FINISHED_JOBS} or {@link #MAX_FINISHED_SIZE}.
+ */
+public class ProcessJobManager {
+	
+	/**
+	 * Task of job: execute the process and return the process log, the consumer is called
+	 * with process info before execute for get progress of logs
+	 */
+	@FunctionalInterface
+	public interface JobTask {
+		ProcessLog.Builder run(Consumer<ProcessInfo> beforeExecute) throws Exception;
+	}
+	
+	/**
+	 * Listener of job: called periodically while job is running and once when it is finished
+	 */
+	@FunctionalInterface
+	public interface JobListener {
+		void onUpdate(Job job);
+	}
+	
+	/**	Threads for run processes	*/
+	private static final int MAX_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+	/**	Jobs waiting for a thread	*/
+	private static final int QUEUE_CAPACITY = 100;
+	/**	Maximum jobs queued or running by session	*/
+	private static final int MAX_JOBS_BY_SESSION = 2;
+	/**	Time between progress notifications (milliseconds)	*/
+	private static final long PROGRESS_INTERVAL = 1000;
+	/**	Time for keep a finished job (milliseconds)	*/
+	private static final long JOB_EXPIRE_TIME = TimeUnit.MINUTES.toMillis(30);
+	/**	Maximum finished jobs retained	*/
+	private static final int MAX_FINISHED_JOBS = 200;
+	/**	Maximum size of results (with report output) of finished jobs retained (bytes)	*/
+	private static final long MAX_FINISHED_SIZE = 256L * 1024 * 1024;
+	/**	Thread counter	*/
+	private static final AtomicInteger threadCount = new AtomicInteger();
+	/**	Executor	*/
+	private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(QUEUE_CAPACITY), runnable -> {
+		Thread thread = new Thread(runnable, "gRPC-Process-Job-" + threadCount.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	});
+	/**	Jobs by UUID	*/
+	private static final Map<String, Job> jobs = new ConcurrentHashMap<>();
+	/**	Active jobs by session, the session is removed when it does not have active jobs	*/
+	private static final Map<String, Integer> activeJobsBySession = new ConcurrentHashMap<>();
+	/**	Scheduler of progress notifications	*/
+	private static final ScheduledExecutorService progressScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "gRPC-Process-Job-Progress");
+		thread.setDaemon(true);
+		return thread;
+	});
+	/**	Logger			*/
+	private static CLogger log = CLogger.getCLogger(ProcessJobManager.class);
+	
+	static {
+		progressScheduler.scheduleWithFixedDelay(() -> {
+			try {
+				jobs.values().stream()
+					.filter(job -> !job.isFinished() && job.hasListeners())
+					.forEach(Job::notifyListeners);
+				purgeFinishedJobs();
+			} catch (Exception e) {
+				log.warning(e.getLocalizedMessage());
+			}
+		}, PROGRESS_INTERVAL, PROGRESS_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Submit a job for session
+	 * @param sessionUuid
+	 * @param task
+	 * @return
+	 */
+	public static Job submit(String sessionUuid, JobTask task) {
+		if(activeJobsBySession.merge(sessionUuid, 1, Integer::sum) > MAX_JOBS_BY_SESSION) {
+			releaseSession(sessionUuid);
+			throw Status.RESOURCE_EXHAUSTED
+				.withDescription("Maximum running processes for session: " + MAX_JOBS_BY_SESSION)
+				.asRuntimeException();
+		}
+		Job job = new Job(sessionUuid);
+		jobs.put(job.getUuid(), job);
+		//	Context of call is used by job thread
+		Properties context = Env.getCtx();
+		try {
+			executor.execute(() -> ContextInterceptor.runWithContext(context, () -> {
+				try {
+					job.setResult(task.run(job::setProcessInfo));
+				} catch (Exception e) {
+					log.severe(e.getLocalizedMessage());
+					job.setError(e);
+				} finally {
+					releaseSession(sessionUuid);
+					job.notifyListeners();
+				}
+			}));
+		} catch (RejectedExecutionException e) {
+			releaseSession(sessionUuid);
+			jobs.remove(job.getUuid());
+			throw Status.RESOURCE_EXHAUSTED
+				.withDescription("Process queue is full")
+				.asRuntimeException();
+		}
+		return job;
+	}
+	
+	/**
+	 * Decrement active jobs of session, it is removed atomically when does not have more jobs
+	 * @param sessionUuid
+	 */
+	private static void releaseSession(String sessionUuid) {
+		activeJobsBySession.computeIfPresent(sessionUuid, (key, activeJobs) -> activeJobs > 1? activeJobs - 1: null);
+	}
+	
+	/**
+	 * Get job of session
+	 * @param sessionUuid
+	 * @param jobUuid
+	 * @return
+	 */
+	public static Job getJob(String sessionUuid, String jobUuid) {
+		Job job = jobs.get(jobUuid);
+		if(job == null
+				|| !job.getSessionUuid().equals(sessionUuid)) {
+			throw new AdempiereException("@AD_PInstance_ID@ @NotFound@");
+		}
+		return job;
+	}
+	
+	/**
+	 * Remove finished jobs after expiration time, the oldest are also removed when the finished jobs
+	 * exceed maximum quantity or size of results (the last finished is kept for its client)
+	 */
+	private static void purgeFinishedJobs() {
+		long expireTime = System.currentTimeMillis() - JOB_EXPIRE_TIME;
+		AtomicInteger retainedJobs = new AtomicInteger();
+		AtomicLong retainedSize = new AtomicLong();
+		jobs.values().stream()
+			.filter(Job::isFinished)
+			.sorted(Comparator.comparingLong(Job::getFinished).reversed())
+			.filter(job -> job.getFinished() < expireTime
+					|| retainedJobs.incrementAndGet() > MAX_FINISHED_JOBS
+					|| (retainedSize.addAndGet(job.getResultSize()) > MAX_FINISHED_SIZE
+							&& retainedJobs.get() > 1))
+			.forEach(job -> jobs.remove(job.getUuid()));
+	}
+	
+	/**
+	 * Process job: state of a process executed by executor
+	 */
+	public static class Job {
+		
+		/**
+		 * Default constructor
+		 * @param sessionUuid
+		 */
+		private Job(String sessionUuid) {
+			this.uuid = UUID.randomUUID().toString();
+			this.sessionUuid = sessionUuid;
+		}
+		
+		/**	Job UUID	*/
+		private final String uuid;
+		/**	Session	*/
+		private final String sessionUuid;
+		/**	Process Info for progress	*/
+		private volatile ProcessInfo processInfo;
+		/**	Result	*/
+		private volatile ProcessLog result;
+		/**	Error	*/
+		private volatile Exception error;
+		/**	Finished time	*/
+		private volatile long finished = 0;
+		/**	Listeners of progress	*/
+		private final List<JobListener> listeners = new CopyOnWriteArrayList<>();
+		
+		/**
+		 * @return the uuid
+		 */
+		public String getUuid() {
+			return uuid;
+		}
+		
+		/**
+		 * @return the sessionUuid
+		 */
+		public String getSessionUuid() {
+			return sessionUuid;
+		}
+		
+		/**
+		 * Process info of running process, can be null if it is not started
+		 * @return
+		 */
+		public ProcessInfo getProcessInfo() {
+			return processInfo;
+		}
+		
+		/**
+		 * Result of process, null while it is running
+		 * @return
+		 */
+		public ProcessLog getResult() {
+			return result;
+		}
+		
+		/**
+		 * Size of result, with output of report
+		 * @return 0 if it is not finished or failed
+		 */
+		private long getResultSize() {
+			ProcessLog result = this.result;
+			return result == null? 0: result.getSerializedSize();
+		}
+		
+		/**
+		 * Error of job
+		 * @return
+		 */
+		public Exception getError() {
+			return error;
+		}
+		
+		/**
+		 * @return the finished time
+		 */
+		public long getFinished() {
+			return finished;
+		}
+		
+		/**
+		 * Verify if job is finished
+		 * @return
+		 */
+		public boolean isFinished() {
+			return finished > 0;
+		}
+		
+		/**
+		 * Add listener of progress, if job is already finished then it is notified immediately
+		 * @param listener
+		 */
+		public void addListener(JobListener listener) {
+			listeners.add(listener);
+			if(isFinished()) {
+				notifyListeners();
+			}
+		}
+		
+		/**
+		 * Remove listener of progress
+		 * @param listener
+		 */
+		public void removeListener(JobListener listener) {
+			listeners.remove(listener);
+		}
+		
+		/**
+		 * Verify if job has listeners
+		 * @return
+		 */
+		private boolean hasListeners() {
+			return !listeners.isEmpty();
+		}
+		
+		/**
+		 * Notify progress or finish to listeners
+		 */
+		private void notifyListeners() {
+			listeners.forEach(listener -> {
+				try {
+					listener.onUpdate(this);
+				} catch (Exception e) {
+					log.warning(e.getLocalizedMessage());
+				}
+			});
+		}
+		
+		/**
+		 * Set process info before execute
+		 * @param processInfo
+		 */
+		private void setProcessInfo(ProcessInfo processInfo) {
+			this.processInfo = processInfo;
+		}
+		
+		/**
+		 * Set result and finish job
+		 * @param result
+		 */
+		private synchronized void setResult(ProcessLog.Builder result) {
+			this.result = result.setUuid(uuid).build();
+			finish();
+		}
+		
+		/**
+		 * Set error and finish job
+		 * @param error
+		 */
+		private synchronized void setError(Exception error) {
+			this.error = error;
+			finish();
+		}
+		
+		/**
+		 * Finish job
+		 */
+		private void finish() {
+			finished = System.currentTimeMillis();
+		}
+	}
+}
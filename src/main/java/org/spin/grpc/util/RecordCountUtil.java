@@ -0,0 +1,195 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.grpc.util;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.compiere.util.CCache;
+import org.compiere.util.CLogger;
+import org.compiere.util.DB;
+import org.compiere.util.Env;
+import org.compiere.util.Util;
+
+/**
+ * Record count for list requests: exact (cached for a short time), estimated from
+ * database statistics or not calculated
+ */
+public class RecordCountUtil {
+	/**	Record count when it is not calculated	*/
+	public static final int UNKNOWN_COUNT = -1;
+	/**	Expiration of cached counts (minutes)	*/
+	private static final int CACHE_EXPIRE_MINUTES = 1;
+	/**	Count cache by table, cache name start with table name then is reset when a record of table is changed	*/
+	private static Map<String, CCache<String, Integer>> countCache = new ConcurrentHashMap<>();
+	/**	Rows from PostgreSQL plan	*/
+	private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+	/**	Logger			*/
+	private static CLogger log = CLogger.getCLogger(RecordCountUtil.class);
+
+	/**
+	 * Get record count for a where clause of table
+	 * @param countMode
+	 * @param tableName
+	 * @param whereClause
+	 * @param parameters
+	 * @param exactCount function for exact count, used when cache is empty
+	 * @return
+	 */
+	public static int getCount(CountMode countMode, String tableName, String whereClause, List<Object> parameters, Supplier<Integer> exactCount) {
+		if(countMode == CountMode.NONE) {
+			return UNKNOWN_COUNT;
+		}
+		if(countMode == CountMode.ESTIMATED) {
+			StringBuffer sql = new StringBuffer("SELECT 1 FROM ").append(tableName);
+			if(!Util.isEmpty(whereClause)) {
+				sql.append(" WHERE ").append(whereClause);
+			}
+			int count = getEstimatedCount(sql.toString(), tableName, parameters);
+			if(count >= 0) {
+				return count;
+			}
+		}
+		return getCachedCount(tableName, whereClause, parameters, exactCount);
+	}
+
+	/**
+	 * Get record count for a SQL, the count query is created from FROM clause of table
+	 * @param countMode
+	 * @param sql
+	 * @param tableName
+	 * @param parameters
+	 * @return
+	 */
+	public static int getCountFromSQL(CountMode countMode, String sql, String tableName, List<Object> parameters) {
+		if(countMode == CountMode.NONE) {
+			return UNKNOWN_COUNT;
+		}
+		if(countMode == CountMode.ESTIMATED) {
+			int count = getEstimatedCount(sql, tableName, parameters);
+			if(count >= 0) {
+				return count;
+			}
+		}
+		return getCachedCount(tableName, sql, parameters, () -> {
+			int positionFrom = sql.lastIndexOf(" FROM " + tableName);
+			String queryCount = "SELECT COUNT(*) " + sql.substring(positionFrom, sql.length());
+			return DB.getSQLValueEx(null, queryCount, parameters);
+		});
+	}
+
+	/**
+	 * Verify if exists a next page: with exact count is compared with limit else a full page is assumed as not last page
+	 * @param countMode
+	 * @param count
+	 * @param limit
+	 * @param pageRecords
+	 * @return
+	 */
+	public static boolean hasNextPage(CountMode countMode, int count, int limit, int pageRecords) {
+		if(countMode == CountMode.EXACT
+				&& count != UNKNOWN_COUNT) {
+			return count > limit;
+		}
+		return pageRecords >= RecordUtil.PAGE_SIZE;
+	}
+
+	/**
+	 * Get exact count from cache or calculate it
+	 * @param tableName
+	 * @param whereClause
+	 * @param parameters
+	 * @param exactCount
+	 * @return
+	 */
+	private static int getCachedCount(String tableName, String whereClause, List<Object> parameters, Supplier<Integer> exactCount) {
+		CCache<String, Integer> cache = countCache.computeIfAbsent(tableName, key -> new CCache<String, Integer>(key + "-Count-gRPC-Service", 30, CACHE_EXPIRE_MINUTES));
+		String key = getCacheKey(whereClause, parameters);
+		synchronized (cache) {
+			Integer count = cache.get(key);
+			if(count != null) {
+				return count;
+			}
+		}
+		int count = exactCount.get();
+		synchronized (cache) {
+			cache.put(key, count);
+		}
+		return count;
+	}
+
+	/**
+	 * Get cache key: role, client, where clause and parameters
+	 * @param whereClause
+	 * @param parameters
+	 * @return
+	 */
+	private static String getCacheKey(String whereClause, List<Object> parameters) {
+		StringBuffer key = new StringBuffer()
+				.append(Env.getAD_Client_ID(Env.getCtx())).append("|")
+				.append(Env.getAD_Role_ID(Env.getCtx())).append("|")
+				.append(whereClause);
+		if(parameters != null) {
+			parameters.forEach(parameter -> key.append("|").append(parameter));
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Get estimated rows from planner, only PostgreSQL: the table statistics of Oracle
+	 * ignore where clause, role access and filters, then exact count is used
+	 * @param sql
+	 * @param tableName
+	 * @param parameters
+	 * @return -1 when estimation is not possible
+	 */
+	private static int getEstimatedCount(String sql, String tableName, List<Object> parameters) {
+		if(!DB.isPostgreSQL()) {
+			return -1;
+		}
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try {
+			pstmt = DB.prepareStatement("EXPLAIN " + sql, null);
+			int parameterIndex = 1;
+			if(parameters != null) {
+				for(Object value : parameters) {
+					ValueUtil.setParameterFromObject(pstmt, value, parameterIndex++);
+				}
+			}
+			rs = pstmt.executeQuery();
+			if(rs.next()) {
+				Matcher matcher = PLAN_ROWS.matcher(rs.getString(1));
+				if(matcher.find()) {
+					return (int) Math.min(Long.parseLong(matcher.group(1)), Integer.MAX_VALUE);
+				}
+			}
+		} catch (Exception e) {
+			log.warning(e.getLocalizedMessage());
+		} finally {
+			DB.close(rs, pstmt);
+			rs = null;
+			pstmt = null;
+		}
+		return -1;
+	}
+}
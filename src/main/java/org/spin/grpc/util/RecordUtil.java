@@ -15,18 +15,47 @@
  *************************************************************************************/
 package org.spin.grpc.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 
 import org.adempiere.exceptions.AdempiereException;
 import org.adempiere.pipo.IDFinder;
 import org.compiere.model.I_AD_Element;
 import org.compiere.model.MClientInfo;
+import org.compiere.model.MTable;
 import org.compiere.model.PO;
 import org.compiere.model.Query;
+import org.compiere.util.CCache;
+import org.compiere.util.CLogger;
+import org.compiere.util.DB;
 import org.compiere.util.Env;
 import org.compiere.util.Util;
+import org.spin.base.setup.SetupLoader;
 import org.spin.model.MADAttachmentReference;
 import org.spin.util.AttachmentUtil;
 
@@ -37,6 +66,22 @@ import org.spin.util.AttachmentUtil;
 public class RecordUtil {
 	/**	Page Size	*/
 	public static final int PAGE_SIZE = 50;
+	/**	Prefix for cursor tokens	*/
+	private static final String CURSOR_PREFIX = "c1.";
+	/**	Signature algorithm for cursor tokens	*/
+	private static final String CURSOR_SIGNATURE_ALGORITHM = "HmacSHA256";
+	/**	Secret used for sign cursor tokens, loaded from setup for be shared by all instances	*/
+	private static volatile byte[] cursorSecret = null;
+	/**	Maximum pairs of UUID / ID in cache for all tables	*/
+	private static final int MAX_IDENTIFIERS = 10000;
+	/**	Maximum UUIDs for a query	*/
+	private static final int MAX_UUIDS_BY_QUERY = 1000;
+	/**	Identifiers by table, the relation UUID / ID of a record never change but the record can be deleted	*/
+	private static final Map<String, TableIdentifiers> identifiersByTable = new ConcurrentHashMap<>();
+	/**	Pairs of UUID / ID in cache	*/
+	private static final AtomicInteger identifiersSize = new AtomicInteger();
+	/**	Logger			*/
+	private static CLogger log = CLogger.getCLogger(RecordUtil.class);
 	
 	/**
 	 * Get Page Number
@@ -69,6 +114,160 @@ public class RecordUtil {
 		return sessionUuid + "-";
 	}
 	
+	/**
+	 * Verify if a page token is a cursor token
+	 * @param pageToken
+	 * @return
+	 */
+	public static boolean isCursorToken(String pageToken) {
+		return !Util.isEmpty(pageToken)
+				&& pageToken.startsWith(CURSOR_PREFIX);
+	}
+	
+	/**
+	 * Get a signed cursor token with the last sort key values of a page, the token is bound to session and table
+	 * @param sessionUuid
+	 * @param tableName
+	 * @param keyValues
+	 * @return
+	 */
+	public static String getCursorToken(String sessionUuid, String tableName, List<Object> keyValues) {
+		if(keyValues == null
+				|| keyValues.isEmpty()) {
+			return null;
+		}
+		try {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			DataOutputStream output = new DataOutputStream(buffer);
+			output.writeUTF(ValueUtil.validateNull(sessionUuid));
+			output.writeUTF(ValueUtil.validateNull(tableName));
+			output.writeInt(keyValues.size());
+			for(Object value : keyValues) {
+				if(value instanceof Integer) {
+					output.writeByte('I');
+					output.writeInt((Integer) value);
+				} else if(value instanceof Long) {
+					output.writeByte('L');
+					output.writeLong((Long) value);
+				} else if(value instanceof BigDecimal) {
+					output.writeByte('N');
+					output.writeUTF(((BigDecimal) value).toPlainString());
+				} else if(value instanceof Timestamp) {
+					output.writeByte('T');
+					output.writeLong(((Timestamp) value).getTime());
+				} else if(value != null) {
+					output.writeByte('S');
+					output.writeUTF(String.valueOf(value));
+				} else {
+					//	Null values can not be compared
+					return null;
+				}
+			}
+			output.flush();
+			byte[] payload = buffer.toByteArray();
+			Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+			return CURSOR_PREFIX + encoder.encodeToString(payload) + "." + encoder.encodeToString(getCursorSignature(payload));
+		} catch (Exception e) {
+			log.warning(e.getLocalizedMessage());
+		}
+		return null;
+	}
+	
+	/**
+	 * Get last sort key values from a cursor token, return null if token is not a valid cursor for session and table
+	 * @param sessionUuid
+	 * @param tableName
+	 * @param pageToken
+	 * @return
+	 */
+	public static List<Object> getCursorValues(String sessionUuid, String tableName, String pageToken) {
+		if(!isCursorToken(pageToken)) {
+			return null;
+		}
+		String[] parts = pageToken.substring(CURSOR_PREFIX.length()).split("\\.");
+		if(parts.length != 2) {
+			return null;
+		}
+		try {
+			Base64.Decoder decoder = Base64.getUrlDecoder();
+			byte[] payload = decoder.decode(parts[0]);
+			//	Validate signature
+			if(!MessageDigest.isEqual(getCursorSignature(payload), decoder.decode(parts[1]))) {
+				return null;
+			}
+			DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+			if(!ValueUtil.validateNull(sessionUuid).equals(input.readUTF())
+					|| !ValueUtil.validateNull(tableName).equals(input.readUTF())) {
+				return null;
+			}
+			int size = input.readInt();
+			List<Object> keyValues = new ArrayList<>();
+			for(int index = 0; index < size; index++) {
+				byte type = input.readByte();
+				if(type == 'I') {
+					keyValues.add(input.readInt());
+				} else if(type == 'L') {
+					keyValues.add(input.readLong());
+				} else if(type == 'N') {
+					keyValues.add(new BigDecimal(input.readUTF()));
+				} else if(type == 'T') {
+					keyValues.add(new Timestamp(input.readLong()));
+				} else if(type == 'S') {
+					keyValues.add(input.readUTF());
+				} else {
+					return null;
+				}
+			}
+			return keyValues;
+		} catch (Exception e) {
+			log.warning(e.getLocalizedMessage());
+		}
+		return null;
+	}
+	
+	/**
+	 * Sign cursor payload
+	 * @param payload
+	 * @return
+	 * @throws Exception
+	 */
+	private static byte[] getCursorSignature(byte[] payload) throws Exception {
+		Mac mac = Mac.getInstance(CURSOR_SIGNATURE_ALGORITHM);
+		mac.init(new SecretKeySpec(getCursorSecret(), CURSOR_SIGNATURE_ALGORITHM));
+		return mac.doFinal(payload);
+	}
+	
+	/**
+	 * Get secret for sign cursor tokens from server setup (cursor_secret), it must be the same
+	 * for all instances behind a balancer. Without it a random secret is used and the tokens
+	 * are valid only while this server is alive
+	 * @return
+	 */
+	private static byte[] getCursorSecret() {
+		byte[] secret = cursorSecret;
+		if(secret != null) {
+			return secret;
+		}
+		synchronized (RecordUtil.class) {
+			if(cursorSecret == null) {
+				String setupSecret = null;
+				if(SetupLoader.getInstance() != null
+						&& SetupLoader.getInstance().getServer() != null) {
+					setupSecret = SetupLoader.getInstance().getServer().getCursor_secret();
+				}
+				if(!Util.isEmpty(setupSecret)) {
+					cursorSecret = setupSecret.getBytes(StandardCharsets.UTF_8);
+				} else {
+					log.warning("Server cursor_secret not defined, page tokens will be invalid after restart or on other instances");
+					byte[] randomSecret = new byte[32];
+					new SecureRandom().nextBytes(randomSecret);
+					cursorSecret = randomSecret;
+				}
+			}
+			return cursorSecret;
+		}
+	}
+	
 	/**
 	 * get Entity from Table and (UUID / Record ID)
 	 * @param context
@@ -137,8 +336,99 @@ public class RecordUtil {
 		if(Util.isEmpty(tableName) || Util.isEmpty(uuid)) {
 			return -1;
 		}
+		int clientId = Env.getAD_Client_ID(Env.getCtx());
+		Integer id = getIdentifiers(tableName).idByUuid.get(getIdentifierKey(clientId, uuid));
+		if(id != null) {
+			return id;
+		}
 		//	Get
-		return IDFinder.getIdFromUUID(Env.getCtx(), tableName, uuid, Env.getAD_Client_ID(Env.getCtx()), transactionName);
+		int recordId = IDFinder.getIdFromUUID(Env.getCtx(), tableName, uuid, clientId, transactionName);
+		//	A record of a transaction can be rolled back
+		if(recordId > 0
+				&& transactionName == null) {
+			putIdentifier(clientId, tableName, uuid, recordId);
+		}
+		return recordId;
+	}
+	
+	/**
+	 * Get IDs for many UUIDs of a table, the UUIDs that are not cached are resolved with a single query
+	 * @param tableName
+	 * @param uuids
+	 * @return map of UUID and ID, the UUIDs not found are not included
+	 */
+	public static Map<String, Integer> getIdsFromUuids(String tableName, Collection<String> uuids) {
+		Map<String, Integer> ids = new HashMap<String, Integer>();
+		if(Util.isEmpty(tableName)
+				|| uuids == null
+				|| uuids.isEmpty()) {
+			return ids;
+		}
+		int clientId = Env.getAD_Client_ID(Env.getCtx());
+		List<String> missingUuids = new ArrayList<String>();
+		TableIdentifiers identifiers = getIdentifiers(tableName);
+		for(String uuid : new LinkedHashSet<String>(uuids)) {
+			if(Util.isEmpty(uuid)) {
+				continue;
+			}
+			Integer id = identifiers.idByUuid.get(getIdentifierKey(clientId, uuid));
+			if(id != null) {
+				ids.put(uuid, id);
+			} else {
+				missingUuids.add(uuid);
+			}
+		}
+		if(missingUuids.isEmpty()) {
+			return ids;
+		}
+		MTable table = MTable.get(Env.getCtx(), tableName);
+		if(table == null
+				|| table.getKeyColumns() == null
+				|| table.getKeyColumns().length != 1) {
+			missingUuids.forEach(uuid -> {
+				int id = getIdFromUuid(tableName, uuid, null);
+				if(id > 0) {
+					ids.put(uuid, id);
+				}
+			});
+			return ids;
+		}
+		String keyColumnName = table.getKeyColumns()[0];
+		for(int fromIndex = 0; fromIndex < missingUuids.size(); fromIndex += MAX_UUIDS_BY_QUERY) {
+			List<String> block = missingUuids.subList(fromIndex, Math.min(fromIndex + MAX_UUIDS_BY_QUERY, missingUuids.size()));
+			StringBuffer sql = new StringBuffer("SELECT ").append(I_AD_Element.COLUMNNAME_UUID).append(", ").append(keyColumnName)
+					.append(" FROM ").append(table.getTableName())
+					.append(" WHERE AD_Client_ID IN(0, ?) AND ").append(I_AD_Element.COLUMNNAME_UUID).append(" IN(");
+			for(int index = 0; index < block.size(); index++) {
+				sql.append(index == 0? "?": ", ?");
+			}
+			sql.append(")");
+			PreparedStatement pstmt = null;
+			ResultSet rs = null;
+			try {
+				pstmt = DB.prepareStatement(sql.toString(), null);
+				int parameterIndex = 1;
+				pstmt.setInt(parameterIndex++, clientId);
+				for(String uuid : block) {
+					pstmt.setString(parameterIndex++, uuid);
+				}
+				rs = pstmt.executeQuery();
+				while(rs.next()) {
+					String uuid = rs.getString(1);
+					int id = rs.getInt(2);
+					ids.put(uuid, id);
+					putIdentifier(clientId, tableName, uuid, id);
+				}
+			} catch (Exception e) {
+				log.severe(e.getLocalizedMessage());
+				throw new AdempiereException(e);
+			} finally {
+				DB.close(rs, pstmt);
+				rs = null;
+				pstmt = null;
+			}
+		}
+		return ids;
 	}
 	
 	/**
@@ -151,8 +441,132 @@ public class RecordUtil {
 		if(Util.isEmpty(tableName) || id <= 0) {
 			return null;
 		}
+		int clientId = Env.getAD_Client_ID(Env.getCtx());
+		String uuid = getIdentifiers(tableName).uuidById.get(getIdentifierKey(clientId, String.valueOf(id)));
+		if(uuid != null) {
+			return uuid;
+		}
 		//	Get
-		return IDFinder.getUUIDFromId(tableName, id, Env.getAD_Client_ID(Env.getCtx()), null);
+		uuid = IDFinder.getUUIDFromId(tableName, id, clientId, null);
+		if(!Util.isEmpty(uuid)) {
+			putIdentifier(clientId, tableName, uuid, id);
+		}
+		return uuid;
+	}
+	
+	/**
+	 * Put relation of UUID and ID in both directions
+	 * @param clientId
+	 * @param tableName
+	 * @param uuid
+	 * @param id
+	 */
+	private static void putIdentifier(int clientId, String tableName, String uuid, int id) {
+		TableIdentifiers identifiers = getIdentifiers(tableName);
+		String key = getIdentifierKey(clientId, uuid);
+		if(identifiers.idByUuid.put(key, id) == null) {
+			identifiersSize.incrementAndGet();
+		}
+		identifiers.uuidById.put(getIdentifierKey(clientId, String.valueOf(id)), uuid);
+		//	Full: remove a part of largest table, then a small table is not evicted by a large table
+		if(identifiersSize.get() > MAX_IDENTIFIERS) {
+			TableIdentifiers largest = identifiersByTable.values().stream()
+					.max(Comparator.comparingInt(tableIdentifiers -> tableIdentifiers.idByUuid.size()))
+					.orElse(identifiers);
+			largest.evict(MAX_IDENTIFIERS / 10, key);
+		}
+	}
+	
+	/**
+	 * Get key of identifier cache
+	 * @param clientId
+	 * @param identifier
+	 * @return
+	 */
+	private static String getIdentifierKey(int clientId, String identifier) {
+		return clientId + "|" + identifier;
+	}
+	
+	/**
+	 * Get identifiers of table
+	 * @param tableName
+	 * @return
+	 */
+	private static TableIdentifiers getIdentifiers(String tableName) {
+		return identifiersByTable.computeIfAbsent(tableName.toUpperCase(Locale.ROOT), key -> new TableIdentifiers(tableName));
+	}
+	
+	/**
+	 * Cache of UUID / ID of a table without locks: a cache named with table name is registered in cache
+	 * management only for know when a record of table is changed or deleted, then the identifiers are cleared
+	 */
+	private static class TableIdentifiers {
+		
+		/**
+		 * Default constructor
+		 * @param tableName
+		 */
+		TableIdentifiers(String tableName) {
+			resetListener = new CCache<String, Boolean>(tableName + "-Identifier-gRPC-Service", 1, 0) {
+				private static final long serialVersionUID = 1L;
+				
+				@Override
+				public int reset() {
+					int size = super.reset();
+					clear();
+					return size;
+				}
+			};
+		}
+		
+		/**	ID by client and UUID	*/
+		private final Map<String, Integer> idByUuid = new ConcurrentHashMap<>();
+		/**	UUID by client and ID	*/
+		private final Map<String, String> uuidById = new ConcurrentHashMap<>();
+		/**	Registered in cache management, it is kept for avoid be collected	*/
+		@SuppressWarnings("unused")
+		private final CCache<String, Boolean> resetListener;
+		
+		/**
+		 * Remove pairs of UUID / ID
+		 * @param quantity
+		 * @param keptKey key just cached, it is not removed
+		 */
+		void evict(int quantity, String keptKey) {
+			Iterator<Map.Entry<String, Integer>> iterator = idByUuid.entrySet().iterator();
+			int removed = 0;
+			while(removed < quantity
+					&& iterator.hasNext()) {
+				Map.Entry<String, Integer> entry = iterator.next();
+				if(entry.getKey().equals(keptKey)) {
+					continue;
+				}
+				remove(entry);
+				removed++;
+			}
+		}
+		
+		/**
+		 * Remove all identifiers
+		 */
+		void clear() {
+			idByUuid.entrySet().forEach(this::remove);
+			uuidById.clear();
+		}
+		
+		/**
+		 * Remove a pair in both directions
+		 * @param entry
+		 */
+		private void remove(Map.Entry<String, Integer> entry) {
+			//	Other thread can remove it
+			if(!idByUuid.remove(entry.getKey(), entry.getValue())) {
+				return;
+			}
+			identifiersSize.decrementAndGet();
+			String clientId = entry.getKey().substring(0, entry.getKey().indexOf('|'));
+			uuidById.remove(getIdentifierKey(Integer.parseInt(clientId), String.valueOf(entry.getValue())));
+		}
 	}
 	
 	/**
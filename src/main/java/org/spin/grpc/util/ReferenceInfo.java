@@ -55,6 +55,14 @@ public class ReferenceInfo {
 	private boolean hasJoinValue;
 	/**	Default Column And Table Alias	*/
 	private final String DISPLAY_COLUMN_ALIAS = "DisplayColumn";
+	/**	Display column with table alias, built once	*/
+	private String displayColumnSQL;
+	/**	Join for base column and table, built once	*/
+	private String joinSQL;
+	/**	Base column of built join	*/
+	private String baseColumnName;
+	/**	Base table of built join	*/
+	private String baseTable;
 	
 	public boolean isHasJoinValue() {
 		return hasJoinValue;
@@ -162,28 +170,54 @@ public class ReferenceInfo {
 	}
 	
 	/**
-	 * Without column name
+	 * Create table alias
 	 */
 	private void buildAlias() {
-		buildAlias(null);
+		//	For table alias
+		if(Util.isEmpty(tableAlias)) {
+			setTableAlias(getColumnName() + "_" + getTableName());
+		}
 	}
 	
 	/**
-	 * Create alias
+	 * Get alias of display column, it is not stored because a shared reference can be used with many column names
+	 * @param columnName
+	 * @return
 	 */
-	private void buildAlias(String columnName) {
-		//	For table alias
-		if(Util.isEmpty(tableAlias)) {
-			setTableAlias(getColumnName() + "_" + getTableName());
+	private String getDisplayColumnAlias(String columnName) {
+		if(!Util.isEmpty(getDisplayColumnAlias())) {
+			return getDisplayColumnAlias();
 		}
-		//	For column alias
-		if(Util.isEmpty(displayColumnAlias)) {
-			if(Util.isEmpty(columnName)) {
-				setDisplayColumnAlias(DISPLAY_COLUMN_ALIAS + "_" + getColumnName());
-			} else {
-				setDisplayColumnAlias(DISPLAY_COLUMN_ALIAS + "_" + columnName);
-			}
+		if(Util.isEmpty(columnName)) {
+			return DISPLAY_COLUMN_ALIAS + "_" + getColumnName();
+		}
+		return DISPLAY_COLUMN_ALIAS + "_" + columnName;
+	}
+	
+	/**
+	 * Build alias, display column and join for a base column and table, after it the reference is not changed
+	 * then it can be shared between threads
+	 * @param baseColumnName
+	 * @param baseTable
+	 */
+	public void build(String baseColumnName, String baseTable) {
+		buildAlias();
+		displayColumnSQL = getDisplayColumnValue(isHasJoinValue());
+		joinSQL = buildJoinValue(baseColumnName, baseTable);
+		this.baseColumnName = baseColumnName;
+		this.baseTable = baseTable;
+	}
+	
+	/**
+	 * Get display column with table alias
+	 * @return
+	 */
+	private String getDisplayColumnSQL() {
+		if(displayColumnSQL != null) {
+			return displayColumnSQL;
 		}
+		buildAlias();
+		return getDisplayColumnValue(isHasJoinValue());
 	}
 	
 	/**
@@ -191,9 +225,7 @@ public class ReferenceInfo {
 	 * @return
 	 */
 	public String getDisplayValue() {
-		buildAlias();
-		//	
-		return getDisplayColumnValue(isHasJoinValue()) + " AS \"" + getDisplayColumnAlias() + "\"";
+		return getDisplayValue(null);
 	}
 	
 	/**
@@ -202,9 +234,7 @@ public class ReferenceInfo {
 	 * @return
 	 */
 	public String getDisplayValue(String columnName) {
-		buildAlias(columnName);
-		//	
-		return getDisplayColumnValue(isHasJoinValue()) + " AS \"" + getDisplayColumnAlias() + "\"";
+		return getDisplayColumnSQL() + " AS \"" + getDisplayColumnAlias(columnName) + "\"";
 	}
 	
 	/**
@@ -212,7 +242,22 @@ public class ReferenceInfo {
 	 * @return
 	 */
 	public String getJoinValue(String baseColumnName, String baseTable) {
+		if(joinSQL != null
+				&& baseColumnName != null && baseColumnName.equals(this.baseColumnName)
+				&& baseTable != null && baseTable.equals(this.baseTable)) {
+			return joinSQL;
+		}
 		buildAlias();
+		return buildJoinValue(baseColumnName, baseTable);
+	}
+	
+	/**
+	 * Build join for a base column and table
+	 * @param baseColumnName
+	 * @param baseTable
+	 * @return
+	 */
+	private String buildJoinValue(String baseColumnName, String baseTable) {
 		if(!isHasJoinValue()) {
 			return "";
 		}
@@ -15,9 +15,8 @@
  *************************************************************************************/
 package org.spin.grpc.util;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Properties;
 
 import org.compiere.model.MLookupFactory;
 import org.compiere.model.MLookupInfo;
@@ -25,6 +24,7 @@ import org.compiere.model.MTable;
 import org.compiere.util.DisplayType;
 import org.compiere.util.Env;
 import org.compiere.util.Language;
+import org.compiere.util.Util;
 
 
 /**
@@ -33,26 +33,38 @@ import org.compiere.util.Language;
  */
 public class ReferenceUtil {
 	/**	Instance	*/
-	private static ReferenceUtil instance = null;
-	/**	Context	*/
-	private Properties context;
-	/**	Local cache	*/
-	private Map<String, ReferenceInfo> referenceInfoMap;
+	private static volatile ReferenceUtil instance = null;
+	/**	Maximum references in cache	*/
+	private static final int MAX_ENTRIES = 1000;
+	/**	Local cache, access order for remove the least recently used	*/
+	private final Map<String, ReferenceInfo> referenceInfoMap;
 	
-	public static ReferenceUtil getInstance(Properties context) {
+	/**
+	 * Get instance, the context used is always the context of current call
+	 * @return
+	 */
+	public static ReferenceUtil getInstance() {
 		if(instance == null) {
-			instance = new ReferenceUtil(context);
+			synchronized (ReferenceUtil.class) {
+				if(instance == null) {
+					instance = new ReferenceUtil();
+				}
+			}
 		}
 		return instance;
 	}
 	
 	/**
 	 * Private constructor
-	 * @param context
 	 */
-	private ReferenceUtil(Properties context) {
-		this.context = context;
-		referenceInfoMap = new HashMap<String, ReferenceInfo>();
+	private ReferenceUtil() {
+		referenceInfoMap = new LinkedHashMap<String, ReferenceInfo>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, ReferenceInfo> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
 	}
 	
 	/**
@@ -76,43 +88,56 @@ public class ReferenceUtil {
 	 * @param referenceValueId
 	 * @param columnName
 	 * @param language
+	 * @param tableName
 	 * @return
 	 */
 	public ReferenceInfo getReferenceInfo(int referenceId, int referenceValueId, String columnName, String language, String tableName) {
 		if(!validateReference(referenceId, referenceValueId, columnName, language)) {
 			return null;
 		}
-		String key = referenceId + "|" + referenceValueId + "|" + columnName + "|" + language;
-		ReferenceInfo referenceInfo = referenceInfoMap.get(key);
-		Language languageValue = Language.getLanguage(Env.getAD_Language(Env.getCtx()));
-		if(referenceInfo == null) {
-			if(DisplayType.TableDir == referenceId
-					|| referenceValueId == 0) {
-				//	Add Display
+		String key = referenceId + "|" + referenceValueId + "|" + columnName + "|" + language + "|" + tableName;
+		ReferenceInfo referenceInfo;
+		synchronized (referenceInfoMap) {
+			referenceInfo = referenceInfoMap.get(key);
+		}
+		if(referenceInfo != null) {
+			return referenceInfo;
+		}
+		//	Language of key
+		Language languageValue = Language.getLanguage(Util.isEmpty(language)? Env.getAD_Language(Env.getCtx()): language);
+		if(DisplayType.TableDir == referenceId
+				|| referenceValueId == 0) {
+			//	Add Display
+			referenceInfo = new ReferenceInfo();
+			referenceInfo.setColumnName(columnName);
+			referenceInfo.setDisplayColumnValue("(" + MLookupFactory.getLookup_TableDirEmbed(languageValue, columnName, tableName) + ")");
+			referenceInfo.setHasJoinValue(false);
+		} else {
+			//	Get info
+			MLookupInfo lookupInfo = MLookupFactory.getLookupInfo(Env.getCtx(), 0, 0, referenceId, languageValue, columnName, referenceValueId, false, null, false);
+			if(lookupInfo != null) {
 				referenceInfo = new ReferenceInfo();
 				referenceInfo.setColumnName(columnName);
-				referenceInfo.setDisplayColumnValue("(" + MLookupFactory.getLookup_TableDirEmbed(languageValue, columnName, tableName) + ")");
-				referenceInfo.setHasJoinValue(false);
-			} else {
-				//	Get info
-				MLookupInfo lookupInfo = MLookupFactory.getLookupInfo(context, 0, 0, referenceId, languageValue, columnName, referenceValueId, false, null, false);
-				if(lookupInfo != null) {
-					referenceInfo = new ReferenceInfo();
-					referenceInfo.setColumnName(columnName);
-					referenceInfo.setDisplayColumnValue((lookupInfo.DisplayColumn == null? "": lookupInfo.DisplayColumn).replace(lookupInfo.TableName + ".", ""));
-					referenceInfo.setJoinColumnName((lookupInfo.KeyColumn == null? "": lookupInfo.KeyColumn).replace(lookupInfo.TableName + ".", ""));
-					referenceInfo.setTableName(lookupInfo.TableName);
-					if(DisplayType.List == referenceId
-							&& referenceValueId != 0) {
-						referenceInfo.setReferenceId(referenceValueId);
-					}
-					//	Translate
-					if(MTable.hasTranslation(lookupInfo.TableName)) {
-						referenceInfo.setLanguage(language);
-					}
+				referenceInfo.setDisplayColumnValue((lookupInfo.DisplayColumn == null? "": lookupInfo.DisplayColumn).replace(lookupInfo.TableName + ".", ""));
+				referenceInfo.setJoinColumnName((lookupInfo.KeyColumn == null? "": lookupInfo.KeyColumn).replace(lookupInfo.TableName + ".", ""));
+				referenceInfo.setTableName(lookupInfo.TableName);
+				if(DisplayType.List == referenceId
+						&& referenceValueId != 0) {
+					referenceInfo.setReferenceId(referenceValueId);
+				}
+				//	Translate
+				if(MTable.hasTranslation(lookupInfo.TableName)) {
+					referenceInfo.setLanguage(language);
 				}
 			}
 		}
+		if(referenceInfo != null) {
+			//	Build SQL once, after it the reference is shared
+			referenceInfo.build(columnName, tableName);
+			synchronized (referenceInfoMap) {
+				referenceInfoMap.put(key, referenceInfo);
+			}
+		}
 		return referenceInfo;
 	}
 }
@@ -0,0 +1,349 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.grpc.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.adempiere.exceptions.AdempiereException;
+import org.compiere.util.CCache;
+import org.compiere.util.CLogger;
+import org.compiere.util.Env;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Cache of report outputs: the exported file is kept on disk and small outputs also in memory.
+ * A output is valid until time to live is expired or a record of source table is changed: the keys of
+ * outputs are registered in a cache named with table name, it is reset by cache management when a record
+ * of table is saved. Concurrent requests for same report are rendered only once.
+ * The files are counted by reader, a file removed from cache is deleted when the last reader release it.
+ */
+public class ReportOutputCache {
+	
+	/**	Maximum outputs in cache	*/
+	private static final int MAX_ENTRIES = 100;
+	/**	Maximum size of files in disk (bytes)	*/
+	private static final long MAX_DISK_SIZE = 512L * 1024 * 1024;
+	/**	Maximum size of a output for keep it in memory (bytes)	*/
+	private static final long MAX_MEMORY_ENTRY_SIZE = 512 * 1024;
+	/**	Time to live of a output (milliseconds)	*/
+	private static final long TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(10);
+	/**	Outputs by key, access order for remove the least recently used	*/
+	private static final LinkedHashMap<String, CachedOutput> outputs = new LinkedHashMap<>(16, 0.75f, true);
+	/**	Keys of valid outputs by source table, reset when the table is changed	*/
+	private static final Map<String, CCache<String, Boolean>> keysByTable = new ConcurrentHashMap<>();
+	/**	Outputs in render	*/
+	private static final Map<String, CompletableFuture<CachedOutput>> rendering = new ConcurrentHashMap<>();
+	/**	Size of files in disk	*/
+	private static long diskSize = 0;
+	/**	Logger			*/
+	private static CLogger log = CLogger.getCLogger(ReportOutputCache.class);
+	
+	/**
+	 * Get cache key from report definition, normalized query and current role
+	 * @param printFormatUuid
+	 * @param reportViewUuid
+	 * @param whereClause where clause of query
+	 * @param isSummary
+	 * @param reportType
+	 * @return
+	 */
+	public static String getKey(String printFormatUuid, String reportViewUuid, String whereClause, boolean isSummary, String reportType) {
+		String normalizedWhereClause = whereClause == null? "": whereClause.trim().replaceAll("\\s+", " ");
+		return new StringBuffer()
+				.append(Env.getAD_Client_ID(Env.getCtx())).append("|")
+				.append(Env.getAD_Role_ID(Env.getCtx())).append("|")
+				.append(Env.getAD_Language(Env.getCtx())).append("|")
+				.append(printFormatUuid).append("|")
+				.append(reportViewUuid).append("|")
+				.append(reportType).append("|")
+				.append(isSummary).append("|")
+				.append(normalizedWhereClause)
+				.toString();
+	}
+	
+	/**
+	 * Get output from cache or render it, concurrent calls with the same key wait for the same render.
+	 * The output is acquired for the caller, it must be released after read it
+	 * @param key
+	 * @param tableName source table of report
+	 * @param render
+	 * @return
+	 */
+	public static CachedOutput get(String key, String tableName, Callable<CachedOutput> render) {
+		while(true) {
+			CachedOutput output = getValid(key, tableName);
+			if(output != null) {
+				return output;
+			}
+			CompletableFuture<CachedOutput> future = new CompletableFuture<>();
+			CompletableFuture<CachedOutput> current = rendering.putIfAbsent(key, future);
+			if(current != null) {
+				output = waitFor(current);
+				//	The output of other request can be removed before acquire it
+				if(output == null
+						|| output.acquire()) {
+					return output;
+				}
+				continue;
+			}
+			try {
+				output = render.call();
+				if(output != null) {
+					output.acquire();
+					put(key, tableName, output);
+				}
+				future.complete(output);
+				return output;
+			} catch (Exception e) {
+				future.completeExceptionally(e);
+				throw new AdempiereException(e);
+			} finally {
+				rendering.remove(key);
+			}
+		}
+	}
+	
+	/**
+	 * Wait for render of other request
+	 * @param future
+	 * @return
+	 */
+	private static CachedOutput waitFor(CompletableFuture<CachedOutput> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AdempiereException(e);
+		} catch (ExecutionException e) {
+			throw new AdempiereException(e.getCause());
+		}
+	}
+	
+	/**
+	 * Get output if it is not expired and the table is not changed, the output is acquired
+	 * @param key
+	 * @param tableName
+	 * @return
+	 */
+	private static synchronized CachedOutput getValid(String key, String tableName) {
+		CachedOutput output = outputs.get(key);
+		if(output == null) {
+			return null;
+		}
+		CCache<String, Boolean> keys = getKeys(tableName);
+		boolean isChanged;
+		synchronized (keys) {
+			isChanged = keys.get(key) == null;
+		}
+		if(output.isExpired()
+				|| isChanged
+				|| !output.getFile().exists()
+				|| !output.acquire()) {
+			remove(key);
+			return null;
+		}
+		return output;
+	}
+	
+	/**
+	 * Get keys of outputs for a table, the cache name start with table name
+	 * @param tableName
+	 * @return
+	 */
+	private static CCache<String, Boolean> getKeys(String tableName) {
+		return keysByTable.computeIfAbsent(String.valueOf(tableName), key -> new CCache<String, Boolean>(key + "-ReportOutput-gRPC-Service", 30, (int) TimeUnit.MILLISECONDS.toMinutes(TIME_TO_LIVE)));
+	}
+	
+	/**
+	 * Put output and remove the least recently used outputs when the cache is full
+	 * @param key
+	 * @param tableName
+	 * @param output
+	 */
+	private static synchronized void put(String key, String tableName, CachedOutput output) {
+		remove(key);
+		CCache<String, Boolean> keys = getKeys(tableName);
+		synchronized (keys) {
+			keys.put(key, Boolean.TRUE);
+		}
+		outputs.put(key, output);
+		diskSize += output.getSize();
+		Iterator<Map.Entry<String, CachedOutput>> iterator = outputs.entrySet().iterator();
+		while(iterator.hasNext()
+				&& (outputs.size() > MAX_ENTRIES || diskSize > MAX_DISK_SIZE)) {
+			Map.Entry<String, CachedOutput> eldest = iterator.next();
+			if(eldest.getValue() == output) {
+				break;
+			}
+			iterator.remove();
+			diskSize -= eldest.getValue().getSize();
+			eldest.getValue().remove();
+		}
+	}
+	
+	/**
+	 * Remove output, the file is deleted when it does not have readers
+	 * @param key
+	 */
+	private static synchronized void remove(String key) {
+		CachedOutput output = outputs.remove(key);
+		if(output != null) {
+			diskSize -= output.getSize();
+			output.remove();
+		}
+	}
+	
+	/**
+	 * Output of a report: metadata, exported file and content for small files
+	 */
+	public static class CachedOutput {
+		
+		/**
+		 * Default constructor
+		 * @param output metadata of report without content
+		 * @param file exported file
+		 * @throws IOException
+		 */
+		public CachedOutput(ReportOutput output, File file) throws IOException {
+			this.output = output;
+			this.file = file;
+			this.size = file.length();
+			this.created = System.currentTimeMillis();
+			if(size <= MAX_MEMORY_ENTRY_SIZE) {
+				try (InputStream inputStream = new FileInputStream(file)) {
+					content = ByteString.readFrom(inputStream);
+				}
+			}
+		}
+		
+		/**	Metadata	*/
+		private final ReportOutput output;
+		/**	Exported File	*/
+		private final File file;
+		/**	File size	*/
+		private final long size;
+		/**	Created time	*/
+		private final long created;
+		/**	Content in memory, null for large files	*/
+		private ByteString content;
+		/**	Readers of output	*/
+		private int readers = 0;
+		/**	Removed from cache	*/
+		private boolean isRemoved = false;
+		/**	File deleted	*/
+		private boolean isDeleted = false;
+		
+		/**
+		 * Get metadata of report
+		 * @return
+		 */
+		public ReportOutput getOutput() {
+			return output;
+		}
+		
+		/**
+		 * @return the file
+		 */
+		public File getFile() {
+			return file;
+		}
+		
+		/**
+		 * @return the size
+		 */
+		public long getSize() {
+			return size;
+		}
+		
+		/**
+		 * Get content from memory or read it from file
+		 * @return
+		 * @throws IOException
+		 */
+		public ByteString getContent() throws IOException {
+			if(content != null) {
+				return content;
+			}
+			try (InputStream inputStream = new FileInputStream(file)) {
+				return ByteString.readFrom(inputStream);
+			}
+		}
+		
+		/**
+		 * Verify if time to live is expired
+		 * @return
+		 */
+		public boolean isExpired() {
+			return System.currentTimeMillis() - created > TIME_TO_LIVE;
+		}
+		
+		/**
+		 * Acquire output for read it
+		 * @return false if the file is already deleted
+		 */
+		private synchronized boolean acquire() {
+			if(isDeleted) {
+				return false;
+			}
+			readers++;
+			return true;
+		}
+		
+		/**
+		 * Release output after read it, the file is deleted if the output is removed from cache
+		 */
+		public synchronized void release() {
+			readers--;
+			if(readers <= 0
+					&& isRemoved) {
+				delete();
+			}
+		}
+		
+		/**
+		 * Mark output as removed from cache, the file is deleted when it does not have readers
+		 */
+		private synchronized void remove() {
+			isRemoved = true;
+			if(readers <= 0) {
+				delete();
+			}
+		}
+		
+		/**
+		 * Delete file of output
+		 */
+		private void delete() {
+			isDeleted = true;
+			if(file.exists()
+					&& !file.delete()) {
+				log.warning("File not deleted: " + file.getAbsolutePath());
+			}
+		}
+	}
+}
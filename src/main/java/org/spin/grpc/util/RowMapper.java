@@ -0,0 +1,277 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.grpc.util;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.adempiere.model.MBrowse;
+import org.adempiere.model.MBrowseField;
+import org.compiere.model.I_AD_Column;
+import org.compiere.model.I_AD_Element;
+import org.compiere.model.MColumn;
+import org.compiere.model.MTable;
+import org.compiere.util.CCache;
+import org.compiere.util.CLogger;
+import org.compiere.util.DisplayType;
+import org.compiere.util.Util;
+import org.spin.util.ASPUtil;
+
+/**
+ * Row mapper compiled once for a shape of result set (table or browse and selected columns):
+ * column index, target column name and value reader are resolved on compile and then
+ * each row is converted without metadata access or column name lookup
+ */
+public class RowMapper {
+
+	/**
+	 * Reader of a column value from result set
+	 */
+	@FunctionalInterface
+	private interface ValueReader {
+		Value.Builder read(ResultSet rs, int index) throws SQLException;
+	}
+
+	/**	Compiled mappers by shape, reset when the dictionary columns change	*/
+	private static CCache<String, RowMapper> mapperCache = new CCache<String, RowMapper>(I_AD_Column.Table_Name + "-RowMapper-gRPC-Service", 30, 0);	//	no time-out
+	/**	Logger			*/
+	private static CLogger log = CLogger.getCLogger(RowMapper.class);
+
+	/**	Column names for put values	*/
+	private String[] columnNames;
+	/**	Readers by column	*/
+	private ValueReader[] readers;
+	/**	Put value also when it is empty (dictionary columns)	*/
+	private boolean[] withEmptyValue;
+	/**	Index of UUID column	*/
+	private int uuidIndex = -1;
+	/**	Index of key column	*/
+	private int keyIndex = -1;
+
+	/**
+	 * Get mapper for table columns
+	 * @param table
+	 * @param metaData
+	 * @return
+	 * @throws SQLException
+	 */
+	public static RowMapper getTableMapper(MTable table, ResultSetMetaData metaData) throws SQLException {
+		String key = getShapeKey("T" + table.getAD_Table_ID(), metaData);
+		RowMapper mapper = getFromCache(key);
+		if(mapper != null) {
+			return mapper;
+		}
+		Map<String, ColumnDefinition> definitions = new HashMap<String, ColumnDefinition>();
+		for(MColumn column: table.getColumnsAsList()) {
+			definitions.put(column.getColumnName().toUpperCase(), new ColumnDefinition(column.getColumnName(), column.getAD_Reference_ID()));
+		}
+		String keyColumnName = table.getKeyColumns().length == 1? table.getKeyColumns()[0]: null;
+		mapper = new RowMapper(metaData, definitions, keyColumnName);
+		putInCache(key, mapper);
+		return mapper;
+	}
+
+	/**
+	 * Get mapper for browse fields
+	 * @param browser
+	 * @param metaData
+	 * @return
+	 * @throws SQLException
+	 */
+	public static RowMapper getBrowseMapper(MBrowse browser, ResultSetMetaData metaData) throws SQLException {
+		String key = getShapeKey("B" + browser.getAD_Browse_ID(), metaData);
+		RowMapper mapper = getFromCache(key);
+		if(mapper != null) {
+			return mapper;
+		}
+		Map<String, ColumnDefinition> definitions = new HashMap<String, ColumnDefinition>();
+		for(MBrowseField field: ASPUtil.getInstance().getBrowseFields(browser.getAD_Browse_ID())) {
+			String columnName = field.getAD_View_Column().getColumnName();
+			definitions.put(columnName.toUpperCase(), new ColumnDefinition(columnName, field.getAD_Reference_ID()));
+		}
+		mapper = new RowMapper(metaData, definitions, null);
+		putInCache(key, mapper);
+		return mapper;
+	}
+
+	/**
+	 * Compile mapper
+	 * @param metaData
+	 * @param definitions
+	 * @param keyColumnName
+	 * @throws SQLException
+	 */
+	private RowMapper(ResultSetMetaData metaData, Map<String, ColumnDefinition> definitions, String keyColumnName) throws SQLException {
+		int columnCount = metaData.getColumnCount();
+		columnNames = new String[columnCount];
+		readers = new ValueReader[columnCount];
+		withEmptyValue = new boolean[columnCount];
+		for (int index = 1; index <= columnCount; index++) {
+			String columnName = metaData.getColumnName(index);
+			ColumnDefinition definition = definitions.get(columnName.toUpperCase());
+			int position = index - 1;
+			//	Display Columns
+			if(definition == null) {
+				columnNames[position] = columnName;
+				readers[position] = (rs, columnIndex) -> {
+					String value = rs.getString(columnIndex);
+					if(Util.isEmpty(value)) {
+						return null;
+					}
+					return ValueUtil.getValueFromString(value);
+				};
+				continue;
+			}
+			columnNames[position] = definition.columnName;
+			readers[position] = getReader(definition.referenceId);
+			withEmptyValue[position] = true;
+			if(definition.columnName.equals(I_AD_Element.COLUMNNAME_UUID)) {
+				uuidIndex = index;
+			} else if(definition.columnName.equals(keyColumnName)) {
+				keyIndex = index;
+			}
+		}
+	}
+
+	/**
+	 * Convert current row of result set
+	 * @param rs
+	 * @return
+	 * @throws SQLException
+	 */
+	public Entity.Builder map(ResultSet rs) throws SQLException {
+		Entity.Builder entity = Entity.newBuilder();
+		for(int position = 0; position < readers.length; position++) {
+			try {
+				Value.Builder value = readers[position].read(rs, position + 1);
+				if(value == null) {
+					if(!withEmptyValue[position]) {
+						continue;
+					}
+					value = Value.newBuilder();
+				}
+				entity.putValues(columnNames[position], value.build());
+			} catch (Exception e) {
+				log.severe(e.getLocalizedMessage());
+			}
+		}
+		if(uuidIndex > 0) {
+			entity.setUuid(ValueUtil.validateNull(rs.getString(uuidIndex)));
+		}
+		if(keyIndex > 0) {
+			entity.setId(rs.getInt(keyIndex));
+		}
+		return entity;
+	}
+
+	/**
+	 * Get reader for a reference, it is the same conversion of {@link ValueUtil#getValueFromReference(Object, int)}
+	 * @param referenceId
+	 * @return
+	 */
+	private static ValueReader getReader(int referenceId) {
+		if(ValueUtil.isLookup(referenceId)
+				|| DisplayType.isID(referenceId)) {
+			return (rs, index) -> {
+				Object value = rs.getObject(index);
+				return value == null? null: ValueUtil.getValueFromObject(value);
+			};
+		} else if(DisplayType.Integer == referenceId) {
+			return (rs, index) -> {
+				int value = rs.getInt(index);
+				return rs.wasNull()? null: ValueUtil.getValueFromInteger(value);
+			};
+		} else if(DisplayType.isNumeric(referenceId)) {
+			return (rs, index) -> {
+				BigDecimal value = rs.getBigDecimal(index);
+				return value == null? null: ValueUtil.getValueFromDecimal(value);
+			};
+		} else if(DisplayType.YesNo == referenceId) {
+			return (rs, index) -> {
+				String value = rs.getString(index);
+				return value == null? null: ValueUtil.getValueFromBoolean(value.equals("Y"));
+			};
+		} else if(DisplayType.isDate(referenceId)) {
+			return (rs, index) -> {
+				Timestamp value = rs.getTimestamp(index);
+				return value == null? null: ValueUtil.getValueFromDate(value);
+			};
+		} else if(DisplayType.isText(referenceId)) {
+			return (rs, index) -> {
+				String value = rs.getString(index);
+				return value == null? null: ValueUtil.getValueFromString(value);
+			};
+		}
+		//	Not supported
+		return (rs, index) -> null;
+	}
+
+	/**
+	 * Get shape of result set: source and column names
+	 * @param source
+	 * @param metaData
+	 * @return
+	 * @throws SQLException
+	 */
+	private static String getShapeKey(String source, ResultSetMetaData metaData) throws SQLException {
+		StringBuffer key = new StringBuffer(source);
+		for (int index = 1; index <= metaData.getColumnCount(); index++) {
+			key.append("|").append(metaData.getColumnName(index));
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Get mapper from cache
+	 * @param key
+	 * @return
+	 */
+	private static RowMapper getFromCache(String key) {
+		synchronized (mapperCache) {
+			return mapperCache.get(key);
+		}
+	}
+
+	/**
+	 * Put mapper in cache
+	 * @param key
+	 * @param mapper
+	 */
+	private static void putInCache(String key, RowMapper mapper) {
+		synchronized (mapperCache) {
+			mapperCache.put(key, mapper);
+		}
+	}
+
+	/**
+	 * Column name and reference
+	 */
+	private static class ColumnDefinition {
+		ColumnDefinition(String columnName, int referenceId) {
+			this.columnName = columnName;
+			this.referenceId = referenceId;
+		}
+		/**	Column Name	*/
+		private String columnName;
+		/**	Reference	*/
+		private int referenceId;
+	}
+}
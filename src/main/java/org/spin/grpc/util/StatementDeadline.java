@@ -0,0 +1,125 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.grpc.util;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.compiere.util.CLogger;
+
+import io.grpc.Context;
+import io.grpc.Deadline;
+
+/**
+ * Propagation of gRPC call to SQL statements: the remaining time of deadline is used as query timeout and
+ * the statement is cancelled when the call is cancelled (by client or deadline), then an abandoned call does not
+ * keep running queries. It is applied by statement proxy of {@link StatementMetrics} on each execute.
+ */
+public class StatementDeadline {
+	
+	/**	SQL State of query cancelled	*/
+	private static final String SQL_STATE_CANCELLED = "57014";
+	/**	Executor of cancel, it is blocking I/O then it is not run on thread of deadline timer	*/
+	private static final ExecutorService cancelExecutor = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "gRPC-Statement-Cancel");
+		thread.setDaemon(true);
+		return thread;
+	});
+	/**	Logger			*/
+	private static CLogger log = CLogger.getCLogger(StatementDeadline.class);
+	
+	/**
+	 * Apply deadline of current call as query timeout and cancel statement if call is cancelled while it is executed
+	 * @param statement
+	 * @return registration for remove after execute
+	 * @throws SQLException if call is already cancelled
+	 */
+	static Registration apply(Statement statement) throws SQLException {
+		Context context = Context.current();
+		if(context.isCancelled()) {
+			throw new SQLException("Call cancelled before execute statement", SQL_STATE_CANCELLED);
+		}
+		Deadline deadline = context.getDeadline();
+		int previousTimeout = statement.getQueryTimeout();
+		boolean isTimeoutChanged = false;
+		if(deadline != null) {
+			int timeout = (int) Math.max(1, Math.min(Integer.MAX_VALUE, deadline.timeRemaining(TimeUnit.SECONDS)));
+			if(previousTimeout == 0
+					|| timeout < previousTimeout) {
+				statement.setQueryTimeout(timeout);
+				isTimeoutChanged = true;
+			}
+		}
+		Registration registration = new Registration(context, statement, isTimeoutChanged? previousTimeout: -1);
+		context.addListener(registration, cancelExecutor);
+		return registration;
+	}
+	
+	/**
+	 * Listener of cancellation registered for a statement. The statement is cancelled only while it is executed:
+	 * the flag is cleared before remove listener, then a late cancel does not abort the next statement
+	 * of the same connection (pooled connections are reused by other calls). The query timeout is restored
+	 * after execute because the statements can be cached by pool and reused by calls without deadline
+	 */
+	static class Registration implements Context.CancellationListener {
+		Registration(Context context, Statement statement, int previousTimeout) {
+			this.context = context;
+			this.statement = statement;
+			this.previousTimeout = previousTimeout;
+		}
+		
+		/**	Context of call	*/
+		private final Context context;
+		/**	Statement	*/
+		private final Statement statement;
+		/**	Query timeout before deadline, -1 if it was not changed	*/
+		private final int previousTimeout;
+		/**	Statement is executing	*/
+		private boolean executing = true;
+		
+		@Override
+		public synchronized void cancelled(Context cancelledContext) {
+			if(!executing) {
+				return;
+			}
+			try {
+				statement.cancel();
+			} catch (SQLException e) {
+				log.fine("Statement not cancelled: " + e.getLocalizedMessage());
+			}
+		}
+		
+		/**
+		 * Remove listener and restore query timeout after execute, it waits for a cancel in progress
+		 */
+		void remove() {
+			synchronized (this) {
+				executing = false;
+			}
+			context.removeListener(this);
+			if(previousTimeout >= 0) {
+				try {
+					statement.setQueryTimeout(previousTimeout);
+				} catch (SQLException e) {
+					log.fine("Query timeout not restored: " + e.getLocalizedMessage());
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,430 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.grpc.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.compiere.db.AdempiereDatabase;
+import org.compiere.db.CConnection;
+import org.compiere.util.CLogger;
+
+/**
+ * Instrumentation of SQL statements: the connections of database are wrapped by a proxy that count and
+ * time the statements executed, the statistics are accumulated for the call bound to current thread by
+ * {@link MetricsInterceptor} and a warning is logged when a call execute many statements of same shape (N+1).
+ * The proxy also apply the deadline and cancellation of call to statements (see {@link StatementDeadline})
+ */
+public class StatementMetrics {
+	
+	/**	Statements of same shape by call for log a warning	*/
+	private static final int REPEATED_STATEMENT_THRESHOLD = 50;
+	/**	Literals of SQL for get shape of statement	*/
+	private static final Pattern LITERALS = Pattern.compile("'[^']*'|\\b\\d+(\\.\\d+)?\\b");
+	/**	Statistics of call bound to thread	*/
+	private static final ThreadLocal<CallStatements> callStatements = new ThreadLocal<CallStatements>();
+	/**	Data source of database without proxy	*/
+	private static DataSource originalDataSource;
+	/**	Logger			*/
+	private static CLogger log = CLogger.getCLogger(StatementMetrics.class);
+	
+	/**
+	 * Instrument the connections of current database, only once.
+	 * If the data source field of database implementation (DB_PostgreSQL, DB_Oracle) accept a proxy then it is
+	 * replaced by reflection, else the JDBC driver used by pool is wrapped and the pool is reset for open
+	 * the connections by wrapper. The deadlines of calls depend of it, then it fails if nothing can be installed
+	 * @throws IllegalStateException if statements can not be instrumented
+	 */
+	public static synchronized void install() {
+		if(originalDataSource != null) {
+			return;
+		}
+		CConnection connection = CConnection.get();
+		AdempiereDatabase database = connection.getDatabase();
+		DataSource dataSource = database.getDataSource(connection);
+		if(dataSource == null) {
+			throw new IllegalStateException("Data source not found, statements can not be instrumented");
+		}
+		try {
+			if(replaceDataSource(database, dataSource)) {
+				log.info("Statements instrumented by data source of " + database.getClass().getName());
+			} else {
+				registerDriver(connection.getConnectionURL(), dataSource);
+				log.info("Statements instrumented by JDBC driver of " + dataSource.getClass().getName());
+			}
+		} catch (IllegalStateException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException("Statements can not be instrumented: " + e.getLocalizedMessage(), e);
+		}
+		originalDataSource = dataSource;
+	}
+	
+	/**
+	 * Replace data source field of database with a proxy, only if the declared type of field accept it
+	 * (it is not possible when the field is declared as class of pool)
+	 * @param database
+	 * @param dataSource
+	 * @return false if data source can not be replaced
+	 * @throws IllegalAccessException
+	 */
+	private static boolean replaceDataSource(AdempiereDatabase database, DataSource dataSource) throws IllegalAccessException {
+		Field dataSourceField = getDataSourceField(database, dataSource);
+		if(dataSourceField == null) {
+			log.fine("Data source field not found in " + database.getClass().getName());
+			return false;
+		}
+		DataSource proxy = (DataSource) Proxy.newProxyInstance(StatementMetrics.class.getClassLoader(), new Class<?>[] {DataSource.class}, 
+				new DelegateHandler(dataSource) {
+					@Override
+					Object afterInvoke(Method method, Object result) {
+						if(result instanceof Connection) {
+							return wrap(Connection.class, result, new ConnectionHandler(result));
+						}
+						return result;
+					}
+				});
+		if(!dataSourceField.getType().isInstance(proxy)) {
+			log.fine("Data source field " + dataSourceField.getName() + " is declared as " + dataSourceField.getType().getName());
+			return false;
+		}
+		dataSourceField.set(database, proxy);
+		return true;
+	}
+	
+	/**
+	 * Wrap the JDBC driver of database URL: the wrapper is registered instead of driver, then the connections
+	 * opened by pool from DriverManager are instrumented. The pool is reset and a connection is requested for
+	 * verify that the new connections are opened by wrapper, else the driver is restored
+	 * @param url
+	 * @param dataSource
+	 * @throws SQLException
+	 * @throws IllegalStateException if pool does not open the connections by DriverManager
+	 */
+	private static void registerDriver(String url, DataSource dataSource) throws SQLException {
+		Driver driver = DriverManager.getDriver(url);
+		StatementDriver statementDriver = new StatementDriver(driver);
+		DriverManager.deregisterDriver(driver);
+		DriverManager.registerDriver(statementDriver);
+		try {
+			ConnectionPoolUtil.softEvictConnections(dataSource);
+			try (Connection verification = dataSource.getConnection()) {
+				//	Only for open a new connection
+			}
+		} finally {
+			if(statementDriver.getOpened() == 0) {
+				DriverManager.deregisterDriver(statementDriver);
+				DriverManager.registerDriver(driver);
+			}
+		}
+		if(statementDriver.getOpened() == 0) {
+			throw new IllegalStateException("Pool " + dataSource.getClass().getName() + " does not open connections by DriverManager, statements can not be instrumented");
+		}
+	}
+	
+	/**
+	 * Get data source without proxy, used for get statistics of pool
+	 * @return null if it is not installed
+	 */
+	public static DataSource getOriginalDataSource() {
+		return originalDataSource;
+	}
+	
+	/**
+	 * Get field that contains the data source in class of database or super classes
+	 * @param database
+	 * @param dataSource
+	 * @return
+	 * @throws IllegalAccessException
+	 */
+	private static Field getDataSourceField(AdempiereDatabase database, DataSource dataSource) throws IllegalAccessException {
+		for(Class<?> current = database.getClass(); current != null; current = current.getSuperclass()) {
+			for(Field field : current.getDeclaredFields()) {
+				if(DataSource.class.isAssignableFrom(field.getType())
+						&& !Modifier.isStatic(field.getModifiers())) {
+					field.setAccessible(true);
+					if(field.get(database) == dataSource) {
+						return field;
+					}
+				}
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Bind statistics of a call to current thread
+	 * @param statements
+	 * @return previous statistics bound, for restore it
+	 */
+	static CallStatements bind(CallStatements statements) {
+		CallStatements previous = callStatements.get();
+		callStatements.set(statements);
+		return previous;
+	}
+	
+	/**
+	 * Restore previous statistics bound to thread
+	 * @param previous
+	 */
+	static void restore(CallStatements previous) {
+		if(previous == null) {
+			callStatements.remove();
+		} else {
+			callStatements.set(previous);
+		}
+	}
+	
+	/**
+	 * Record a statement executed
+	 * @param sql
+	 * @param elapsedNanos
+	 */
+	private static void record(String sql, long elapsedNanos) {
+		CallStatements statements = callStatements.get();
+		if(statements != null) {
+			statements.record(sql, elapsedNanos);
+		}
+	}
+	
+	/**
+	 * Create a proxy for an interface
+	 * @param type
+	 * @param target
+	 * @param handler
+	 * @return
+	 */
+	private static Object wrap(Class<?> type, Object target, InvocationHandler handler) {
+		return Proxy.newProxyInstance(StatementMetrics.class.getClassLoader(), new Class<?>[] {type}, handler);
+	}
+	
+	/**
+	 * JDBC driver that wrap the connections of a driver
+	 */
+	private static class StatementDriver implements Driver {
+		StatementDriver(Driver driver) {
+			this.driver = driver;
+		}
+		
+		/**	Driver of database	*/
+		private final Driver driver;
+		/**	Connections opened	*/
+		private final AtomicInteger opened = new AtomicInteger();
+		
+		/**
+		 * @return connections opened by this driver
+		 */
+		int getOpened() {
+			return opened.get();
+		}
+		
+		@Override
+		public Connection connect(String url, Properties info) throws SQLException {
+			Connection connection = driver.connect(url, info);
+			if(connection == null) {
+				return null;
+			}
+			opened.incrementAndGet();
+			return (Connection) wrap(Connection.class, connection, new ConnectionHandler(connection));
+		}
+		
+		@Override
+		public boolean acceptsURL(String url) throws SQLException {
+			return driver.acceptsURL(url);
+		}
+		
+		@Override
+		public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+			return driver.getPropertyInfo(url, info);
+		}
+		
+		@Override
+		public int getMajorVersion() {
+			return driver.getMajorVersion();
+		}
+		
+		@Override
+		public int getMinorVersion() {
+			return driver.getMinorVersion();
+		}
+		
+		@Override
+		public boolean jdbcCompliant() {
+			return driver.jdbcCompliant();
+		}
+		
+		@Override
+		public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+			return driver.getParentLogger();
+		}
+	}
+	
+	/**
+	 * Handler that call the target and unwrap exceptions
+	 */
+	private static class DelegateHandler implements InvocationHandler {
+		DelegateHandler(Object target) {
+			this.target = target;
+		}
+		
+		/**	Target	*/
+		protected final Object target;
+		
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			try {
+				return afterInvoke(method, method.invoke(target, args));
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+		
+		/**
+		 * Change result of a method
+		 * @param method
+		 * @param result
+		 * @return
+		 */
+		Object afterInvoke(Method method, Object result) {
+			return result;
+		}
+	}
+	
+	/**
+	 * Connection handler: wrap the statements created
+	 */
+	private static class ConnectionHandler extends DelegateHandler {
+		ConnectionHandler(Object target) {
+			super(target);
+		}
+		
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result = super.invoke(proxy, method, args);
+			String sql = args != null && args.length > 0 && args[0] instanceof String? (String) args[0]: null;
+			if(result instanceof CallableStatement) {
+				return wrap(CallableStatement.class, result, new StatementHandler(result, sql));
+			} else if(result instanceof PreparedStatement) {
+				return wrap(PreparedStatement.class, result, new StatementHandler(result, sql));
+			} else if(result instanceof Statement) {
+				return wrap(Statement.class, result, new StatementHandler(result, null));
+			}
+			return result;
+		}
+	}
+	
+	/**
+	 * Statement handler: time the execute methods and apply deadline of call
+	 */
+	private static class StatementHandler extends DelegateHandler {
+		StatementHandler(Object target, String sql) {
+			super(target);
+			this.sql = sql;
+		}
+		
+		/**	SQL of prepared statement	*/
+		private final String sql;
+		
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if(!method.getName().startsWith("execute")) {
+				return super.invoke(proxy, method, args);
+			}
+			String statementSql = args != null && args.length > 0 && args[0] instanceof String? (String) args[0]: sql;
+			//	Timeout and cancel from call
+			StatementDeadline.Registration registration = StatementDeadline.apply((Statement) target);
+			long startTime = System.nanoTime();
+			try {
+				return super.invoke(proxy, method, args);
+			} finally {
+				record(statementSql, System.nanoTime() - startTime);
+				registration.remove();
+			}
+		}
+	}
+	
+	/**
+	 * Statements of a call
+	 */
+	static class CallStatements {
+		/**	Statements executed	*/
+		private int count = 0;
+		/**	Time of statements	*/
+		private long elapsedNanos = 0;
+		/**	Statements by shape	*/
+		private final Map<String, Integer> countByShape = new HashMap<>();
+		
+		/**
+		 * Record a statement
+		 * @param sql
+		 * @param elapsed
+		 */
+		synchronized void record(String sql, long elapsed) {
+			count++;
+			elapsedNanos += elapsed;
+			if(sql != null) {
+				countByShape.merge(LITERALS.matcher(sql).replaceAll("?"), 1, Integer::sum);
+			}
+		}
+		
+		/**
+		 * @return statements executed
+		 */
+		synchronized int getCount() {
+			return count;
+		}
+		
+		/**
+		 * @return time of statements (nanoseconds)
+		 */
+		synchronized long getElapsedNanos() {
+			return elapsedNanos;
+		}
+		
+		/**
+		 * Log a warning for statements repeated many times
+		 * @param methodName
+		 */
+		synchronized void warnRepeated(String methodName) {
+			countByShape.forEach((shape, shapeCount) -> {
+				if(shapeCount > REPEATED_STATEMENT_THRESHOLD) {
+					log.warning(methodName + " executed " + shapeCount + " times the statement: " + shape);
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,492 @@
+/*************************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                              *
+ * This program is free software; you can redistribute it and/or modify it    		 *
+ * under the terms version 2 or later of the GNU General Public License as published *
+ * by the Free Software Foundation. This program is distributed in the hope   		 *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied 		 *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           		 *
+ * See the GNU General Public License for more details.                       		 *
+ * You should have received a copy of the GNU General Public License along    		 *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    		 *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     		 *
+ * For the text or an alternative of this public license, you may reach us    		 *
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, S.A. All Rights Reserved. *
+ * Contributor(s): Yamel Senih www.erpya.com				  		                 *
+ *************************************************************************************/
+package org.spin.grpc.util;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.compiere.model.MTable;
+import org.compiere.util.CLogger;
+import org.compiere.util.DB;
+import org.compiere.util.Env;
+import org.compiere.util.Util;
+import org.spin.base.setup.SearchIndex;
+
+/**
+ * In-memory trigram index for search by contained text (type-ahead). The index is built on start
+ * for tables and columns defined on setup and is refreshed from Updated column, the deleted records are
+ * removed by a periodic verification of keys. A search return the
+ * candidate IDs as a where clause, then the final query apply the access and the other filters. The records
+ * updated after last refresh are not indexed yet, then the where clause also search them with LIKE.
+ * <pre>
+ * String indexWhereClause = TrigramIndex.getInstance().getWhereClause(I_C_BPartner.Table_Name, searchValue, parameters, "Value", "Name");
+ * if(indexWhereClause == null) {
+ * 	//	Not indexed: use LIKE
+ * }
+ * </pre>
+ */
+public class TrigramIndex {
+	
+	/**	Instance	*/
+	private static TrigramIndex instance;
+	/**	Minimum length of text for search	*/
+	private static final int MIN_LENGTH = 3;
+	/**	Maximum candidates, if there are more then the search is done by database	*/
+	private static final int MAX_CANDIDATES = 1000;
+	/**	Refresh interval (minutes)	*/
+	private static final int REFRESH_INTERVAL = 1;
+	/**	Refreshes between verification of deleted records	*/
+	private static final int RECONCILE_INTERVAL = 15;
+	/**	Indexes by table	*/
+	private final Map<String, TableIndex> indexes = new ConcurrentHashMap<>();
+	/**	Refresh executor	*/
+	private ScheduledExecutorService executor;
+	/**	Logger			*/
+	private static CLogger log = CLogger.getCLogger(TrigramIndex.class);
+	
+	/**
+	 * Get instance
+	 * @return
+	 */
+	public static TrigramIndex getInstance() {
+		if(instance == null) {
+			synchronized (TrigramIndex.class) {
+				if(instance == null) {
+					instance = new TrigramIndex();
+				}
+			}
+		}
+		return instance;
+	}
+	
+	/**
+	 * Build indexes in background and schedule the refresh
+	 * @param definitions
+	 */
+	public synchronized void start(List<SearchIndex> definitions) {
+		if(definitions == null
+				|| definitions.isEmpty()
+				|| executor != null) {
+			return;
+		}
+		for(SearchIndex definition : definitions) {
+			if(Util.isEmpty(definition.getTable_name())
+					|| definition.getColumns() == null
+					|| definition.getColumns().isEmpty()) {
+				log.warning("Search index without table or columns: " + definition);
+				continue;
+			}
+			MTable table = MTable.get(Env.getCtx(), definition.getTable_name());
+			if(table == null
+					|| table.getAD_Table_ID() <= 0
+					|| table.getKeyColumns() == null
+					|| table.getKeyColumns().length != 1) {
+				log.warning("Search index for table without single key: " + definition.getTable_name());
+				continue;
+			}
+			indexes.put(table.getTableName().toUpperCase(Locale.ROOT), new TableIndex(table.getTableName(), table.getKeyColumns()[0], definition.getColumns()));
+		}
+		if(indexes.isEmpty()) {
+			return;
+		}
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "TrigramIndex-Refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(() -> indexes.values().forEach(index -> {
+			try {
+				index.refresh();
+			} catch (Exception e) {
+				log.severe("Error refreshing search index for " + index.tableName + ": " + e.getLocalizedMessage());
+			}
+		}), 0, REFRESH_INTERVAL, TimeUnit.MINUTES);
+	}
+	
+	/**
+	 * Get where clause for records that contain the search value in some of columns:
+	 * TableName.Key_ID IN (?, ...) OR (TableName.Updated >= ? AND (UPPER(TableName.Column) LIKE ? OR ...))
+	 * @param tableName
+	 * @param searchValue text without wildcards
+	 * @param parameters parameters of where clause are added here
+	 * @param columnNames
+	 * @return null when the index can not be used (table or columns not indexed, index not ready, short text or too many candidates)
+	 */
+	public String getWhereClause(String tableName, String searchValue, List<Object> parameters, String... columnNames) {
+		if(Util.isEmpty(tableName)
+				|| Util.isEmpty(searchValue)
+				|| searchValue.length() < MIN_LENGTH
+				|| searchValue.indexOf('%') >= 0
+				|| searchValue.indexOf('_') >= 0) {
+			return null;
+		}
+		TableIndex index = indexes.get(tableName.toUpperCase(Locale.ROOT));
+		if(index == null) {
+			return null;
+		}
+		List<Integer> candidates = index.search(searchValue.toUpperCase(Locale.ROOT), columnNames, Env.getAD_Client_ID(Env.getCtx()));
+		if(candidates == null) {
+			return null;
+		}
+		StringBuffer whereClause = new StringBuffer();
+		if(!candidates.isEmpty()) {
+			whereClause.append(index.tableName).append(".").append(index.keyColumnName).append(" IN (");
+			for(int position = 0; position < candidates.size(); position++) {
+				if(position > 0) {
+					whereClause.append(", ");
+				}
+				whereClause.append("?");
+				parameters.add(candidates.get(position));
+			}
+			whereClause.append(") OR ");
+		}
+		//	Records changed after last refresh are searched by database
+		whereClause.append("(");
+		Timestamp lastUpdated = index.getLastUpdated();
+		if(lastUpdated != null) {
+			whereClause.append(index.tableName).append(".Updated >= ? AND ");
+			parameters.add(lastUpdated);
+		}
+		whereClause.append("(");
+		String likeValue = "%" + searchValue.toUpperCase(Locale.ROOT) + "%";
+		for(int position = 0; position < columnNames.length; position++) {
+			if(position > 0) {
+				whereClause.append(" OR ");
+			}
+			whereClause.append("UPPER(").append(index.tableName).append(".").append(columnNames[position]).append(") LIKE ?");
+			parameters.add(likeValue);
+		}
+		return whereClause.append("))").toString();
+	}
+	
+	/**
+	 * Encode three characters as a long
+	 * @param text
+	 * @param position
+	 * @return
+	 */
+	private static long getTrigram(String text, int position) {
+		return ((long) text.charAt(position) << 32)
+				| ((long) text.charAt(position + 1) << 16)
+				| text.charAt(position + 2);
+	}
+	
+	/**
+	 * Index of a table
+	 */
+	private static class TableIndex {
+		
+		/**
+		 * Default constructor
+		 * @param tableName
+		 * @param keyColumnName
+		 * @param columnNames
+		 */
+		TableIndex(String tableName, String keyColumnName, List<String> columnNames) {
+			this.tableName = tableName;
+			this.keyColumnName = keyColumnName;
+			this.columnNames = columnNames.toArray(new String[columnNames.size()]);
+		}
+		
+		/**	Table Name	*/
+		private String tableName;
+		/**	Key Column	*/
+		private String keyColumnName;
+		/**	Indexed Columns	*/
+		private String[] columnNames;
+		/**	Record IDs by trigram	*/
+		private final Map<Long, Set<Integer>> postings = new HashMap<>();
+		/**	Indexed values by record ID	*/
+		private final Map<Integer, IndexedRow> rows = new HashMap<>();
+		/**	Last updated record indexed	*/
+		private volatile Timestamp lastUpdated;
+		/**	Refreshes after last verification of deleted records	*/
+		private int refreshes = 0;
+		/**	Is built	*/
+		private volatile boolean ready = false;
+		/**	Lock	*/
+		private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+		
+		/**
+		 * Get updated of last record indexed
+		 * @return null if table is empty
+		 */
+		Timestamp getLastUpdated() {
+			return lastUpdated;
+		}
+		
+		/**
+		 * Add records changed since last refresh, the inactive records are removed
+		 */
+		void refresh() throws Exception {
+			StringBuffer sql = new StringBuffer("SELECT ").append(keyColumnName).append(", AD_Client_ID, Updated, IsActive");
+			for(String columnName : columnNames) {
+				sql.append(", ").append(columnName);
+			}
+			sql.append(" FROM ").append(tableName);
+			//	The same timestamp is read again because other records can be committed with it later
+			if(lastUpdated != null) {
+				sql.append(" WHERE Updated >= ?");
+			}
+			sql.append(" ORDER BY Updated");
+			PreparedStatement pstmt = null;
+			ResultSet rs = null;
+			int indexed = 0;
+			try {
+				pstmt = DB.prepareStatement(sql.toString(), null);
+				if(lastUpdated != null) {
+					pstmt.setTimestamp(1, lastUpdated);
+				}
+				rs = pstmt.executeQuery();
+				while(rs.next()) {
+					int recordId = rs.getInt(1);
+					Timestamp updated = rs.getTimestamp(3);
+					if("Y".equals(rs.getString(4))) {
+						IndexedRow row = new IndexedRow(rs.getInt(2), new String[columnNames.length]);
+						for(int position = 0; position < columnNames.length; position++) {
+							String value = rs.getString(position + 5);
+							row.values[position] = value == null? null: value.toUpperCase(Locale.ROOT);
+						}
+						put(recordId, row);
+					} else {
+						remove(recordId);
+					}
+					if(updated != null
+							&& (lastUpdated == null || updated.after(lastUpdated))) {
+						lastUpdated = updated;
+					}
+					indexed++;
+				}
+			} finally {
+				DB.close(rs, pstmt);
+				rs = null;
+				pstmt = null;
+			}
+			if(!ready) {
+				log.info("Search index for " + tableName + " built with " + indexed + " records");
+			} else if(++refreshes >= RECONCILE_INTERVAL) {
+				refreshes = 0;
+				removeDeleted();
+			}
+			ready = true;
+		}
+		
+		/**
+		 * Remove indexed records that are deleted: the Updated column does not show them
+		 */
+		private void removeDeleted() throws Exception {
+			Set<Integer> activeIds = new HashSet<>();
+			PreparedStatement pstmt = null;
+			ResultSet rs = null;
+			try {
+				pstmt = DB.prepareStatement("SELECT " + keyColumnName + " FROM " + tableName + " WHERE IsActive = 'Y'", null);
+				rs = pstmt.executeQuery();
+				while(rs.next()) {
+					activeIds.add(rs.getInt(1));
+				}
+			} finally {
+				DB.close(rs, pstmt);
+				rs = null;
+				pstmt = null;
+			}
+			List<Integer> deletedIds = new ArrayList<>();
+			lock.readLock().lock();
+			try {
+				rows.keySet().stream()
+					.filter(recordId -> !activeIds.contains(recordId))
+					.forEach(deletedIds::add);
+			} finally {
+				lock.readLock().unlock();
+			}
+			deletedIds.forEach(this::remove);
+		}
+		
+		/**
+		 * Replace indexed values of a record
+		 * @param recordId
+		 * @param row
+		 */
+		private void put(int recordId, IndexedRow row) {
+			lock.writeLock().lock();
+			try {
+				removePostings(recordId, rows.put(recordId, row));
+				for(long trigram : row.getTrigrams()) {
+					postings.computeIfAbsent(trigram, key -> new HashSet<>()).add(recordId);
+				}
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+		
+		/**
+		 * Remove a record from index
+		 * @param recordId
+		 */
+		private void remove(int recordId) {
+			lock.writeLock().lock();
+			try {
+				removePostings(recordId, rows.remove(recordId));
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+		
+		/**
+		 * Remove record from postings of previous indexed values, the write lock must be held
+		 * @param recordId
+		 * @param previous can be null
+		 */
+		private void removePostings(int recordId, IndexedRow previous) {
+			if(previous == null) {
+				return;
+			}
+			for(long trigram : previous.getTrigrams()) {
+				Set<Integer> ids = postings.get(trigram);
+				if(ids != null) {
+					ids.remove(recordId);
+					if(ids.isEmpty()) {
+						postings.remove(trigram);
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Search records of client (or system) with a column that contain the text
+		 * @param text upper case text
+		 * @param searchColumnNames
+		 * @param clientId
+		 * @return null if index can not be used
+		 */
+		List<Integer> search(String text, String[] searchColumnNames, int clientId) {
+			if(!ready) {
+				return null;
+			}
+			//	Columns to verify
+			int[] positions = new int[searchColumnNames.length];
+			for(int searchPosition = 0; searchPosition < searchColumnNames.length; searchPosition++) {
+				positions[searchPosition] = -1;
+				for(int position = 0; position < columnNames.length; position++) {
+					if(columnNames[position].equalsIgnoreCase(searchColumnNames[searchPosition])) {
+						positions[searchPosition] = position;
+						break;
+					}
+				}
+				if(positions[searchPosition] < 0) {
+					return null;
+				}
+			}
+			List<Integer> candidates = new ArrayList<>();
+			lock.readLock().lock();
+			try {
+				//	Rarest trigram of text
+				Set<Integer> smallest = null;
+				for(int position = 0; position <= text.length() - MIN_LENGTH; position++) {
+					Set<Integer> ids = postings.get(getTrigram(text, position));
+					if(ids == null) {
+						return candidates;
+					}
+					if(smallest == null
+							|| ids.size() < smallest.size()) {
+						smallest = ids;
+					}
+				}
+				for(Integer recordId : smallest) {
+					IndexedRow row = rows.get(recordId);
+					if(row == null
+							|| (row.clientId != 0 && row.clientId != clientId)
+							|| !row.contains(text, positions)) {
+						continue;
+					}
+					candidates.add(recordId);
+					if(candidates.size() > MAX_CANDIDATES) {
+						return null;
+					}
+				}
+			} finally {
+				lock.readLock().unlock();
+			}
+			return candidates;
+		}
+	}
+	
+	/**
+	 * Indexed values of a record
+	 */
+	private static class IndexedRow {
+		
+		/**
+		 * Default constructor
+		 * @param clientId
+		 * @param values
+		 */
+		IndexedRow(int clientId, String[] values) {
+			this.clientId = clientId;
+			this.values = values;
+		}
+		
+		/**	Client	*/
+		private int clientId;
+		/**	Upper case values by indexed column	*/
+		private String[] values;
+		
+		/**
+		 * Get distinct trigrams of all values
+		 * @return
+		 */
+		Set<Long> getTrigrams() {
+			Set<Long> trigrams = new HashSet<>();
+			for(String value : values) {
+				if(value == null) {
+					continue;
+				}
+				for(int position = 0; position <= value.length() - MIN_LENGTH; position++) {
+					trigrams.add(getTrigram(value, position));
+				}
+			}
+			return trigrams;
+		}
+		
+		/**
+		 * Verify if some of columns contain the text
+		 * @param text
+		 * @param positions
+		 * @return
+		 */
+		boolean contains(String text, int[] positions) {
+			for(int position : positions) {
+				if(values[position] != null
+						&& values[position].contains(text)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
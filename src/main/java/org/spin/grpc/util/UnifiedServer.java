@@ -0,0 +1,232 @@
+/************************************************************************************
+ * Copyright (C) 2012-2018 E.R.P. Consultores y Asociados, C.A.                     *
+ * Contributor(s): Yamel Senih ysenih@erpya.com                                     *
+ * This program is free software: you can redistribute it and/or modify             *
+ * it under the terms of the GNU General Public License as published by             *
+ * the Free Software Foundation, either version 2 of the License, or                *
+ * (at your option) any later version.                                              *
+ * This program is distributed in the hope that it will be useful,                  *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of                   *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.	See the                     *
+ * GNU General Public License for more details.                                     *
+ * You should have received a copy of the GNU General Public License                *
+ * along with this program.	If not, see <https://www.gnu.org/licenses/>.            *
+ ************************************************************************************/
+package org.spin.grpc.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.spin.base.setup.SetupLoader;
+
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.netty.GrpcSslContexts;
+import io.grpc.netty.NettyServerBuilder;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.ssl.ClientAuth;
+import io.netty.handler.ssl.SslContextBuilder;
+
+/**
+ * Server that host any subset of services (access, business, dictionary and enrollment) in a single
+ * Netty server: one listening socket, one boss and one worker event loop and a fixed executor
+ * for the application code, the quantity of threads is defined on setup or from processors.
+ * The queue of executor is not bounded: gRPC also run the callbacks of started calls on it and a
+ * rejected task break the call or the connection, the overload is rejected by the admission lanes
+ * with RESOURCE_EXHAUSTED on the call.
+ */
+public class UnifiedServer {
+	private static final Logger logger = Logger.getLogger(UnifiedServer.class.getName());
+	
+	/**	Access service	*/
+	public static final String SERVICE_ACCESS = "access";
+	/**	Business data, core, user interface, dashboarding, workflow, entity log and POS services	*/
+	public static final String SERVICE_BUSINESS = "business";
+	/**	Dictionary service	*/
+	public static final String SERVICE_DICTIONARY = "dictionary";
+	/**	Enrollment service	*/
+	public static final String SERVICE_ENROLLMENT = "enrollment";
+	
+	private Server server;
+	/**	Boss event loop: accept connections	*/
+	private EventLoopGroup bossGroup;
+	/**	Worker event loop: read and write of connections	*/
+	private EventLoopGroup workerGroup;
+	/**	Executor of application code	*/
+	private ThreadPoolExecutor executor;
+	
+	/**
+	 * Get SSL / TLS context
+	 * @return
+	 */
+	private SslContextBuilder getSslContextBuilder() {
+		SslContextBuilder sslClientContextBuilder = SslContextBuilder.forServer(new File(SetupLoader.getInstance().getServer().getCertificate_chain_file()),
+				new File(SetupLoader.getInstance().getServer().getPrivate_key_file()));
+		if (SetupLoader.getInstance().getServer().getTrust_certificate_collection_file() != null) {
+			sslClientContextBuilder.trustManager(new File(SetupLoader.getInstance().getServer().getTrust_certificate_collection_file()));
+			sslClientContextBuilder.clientAuth(ClientAuth.REQUIRE);
+		}
+		return GrpcSslContexts.configure(sslClientContextBuilder);
+	}
+	
+	/**
+	 * Get services to host, all if it is not defined on setup
+	 * @return
+	 */
+	private List<String> getServices() {
+		List<String> services = SetupLoader.getInstance().getServer().getServices();
+		if(services == null
+				|| services.isEmpty()) {
+			return Arrays.asList(SERVICE_ACCESS, SERVICE_BUSINESS, SERVICE_DICTIONARY, SERVICE_ENROLLMENT);
+		}
+		return services;
+	}
+	
+	/**
+	 * Get thread factory with name
+	 * @param name
+	 * @return
+	 */
+	private static ThreadFactory getThreadFactory(String name) {
+		AtomicInteger threadNumber = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+	
+	private void start() throws IOException {
+		org.spin.base.setup.Server setup = SetupLoader.getInstance().getServer();
+		int processors = Runtime.getRuntime().availableProcessors();
+		int workerThreads = setup.getWorker_threads() > 0? setup.getWorker_threads(): processors;
+		int executorThreads = setup.getExecutor_threads() > 0? setup.getExecutor_threads(): processors * 2;
+		bossGroup = new NioEventLoopGroup(1, getThreadFactory("gRPC-Boss"));
+		workerGroup = new NioEventLoopGroup(workerThreads, getThreadFactory("gRPC-Worker"));
+		executor = new ThreadPoolExecutor(executorThreads, executorThreads, 60, TimeUnit.SECONDS, 
+				new LinkedBlockingQueue<Runnable>(), getThreadFactory("gRPC-Executor"));
+		executor.allowCoreThreadTimeOut(true);
+		NettyServerBuilder builder = NettyServerBuilder.forPort(setup.getPort())
+				.bossEventLoopGroup(bossGroup)
+				.workerEventLoopGroup(workerGroup)
+				.channelType(NioServerSocketChannel.class)
+				.executor(executor);
+		//	Context by call
+		ContextInterceptor contextInterceptor = new ContextInterceptor();
+		//	Admission control by lanes
+		AdmissionControlInterceptor admissionControlInterceptor = new AdmissionControlInterceptor(SetupLoader.getInstance().getLanes());
+		//	Metrics of calls, it must be the last interceptor
+		MetricsInterceptor metricsInterceptor = new MetricsInterceptor();
+		MetricsEndpoint.registerServerGauges(admissionControlInterceptor);
+		MetricsEndpoint.start(SetupLoader.getInstance().getServer().getMetrics_host(), SetupLoader.getInstance().getServer().getMetrics_port());
+		List<String> services = getServices();
+		for(String service : services) {
+			if(SERVICE_ACCESS.equals(service)) {
+				builder.addService(ServerInterceptors.intercept(new AccessServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor));
+			} else if(SERVICE_BUSINESS.equals(service)) {
+				builder
+					//	Base Service
+					.addService(ServerInterceptors.intercept(new BusinessDataServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
+					//	Core Functionality
+					.addService(ServerInterceptors.intercept(new CoreFunctionalityImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
+					//	User Interface
+					.addService(ServerInterceptors.intercept(new UserInterfaceServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
+					//	Dashboarding
+					.addService(ServerInterceptors.intercept(new DashboardingServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
+					//	Workflow
+					.addService(ServerInterceptors.intercept(new WorkflowServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
+					//	Entity Log
+					.addService(ServerInterceptors.intercept(new EntityLogServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor))
+					//	POS
+					.addService(ServerInterceptors.intercept(new PointOfSalesServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor));
+				//	Search index for contained text
+				TrigramIndex.getInstance().start(SetupLoader.getInstance().getSearch_index());
+			} else if(SERVICE_DICTIONARY.equals(service)) {
+				builder.addService(ServerInterceptors.intercept(new DictionaryServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor));
+			} else if(SERVICE_ENROLLMENT.equals(service)) {
+				builder.addService(ServerInterceptors.intercept(new EnrollmentServiceImplementation(), contextInterceptor, admissionControlInterceptor, metricsInterceptor));
+			} else {
+				throw new IllegalArgumentException("Service not supported: " + service);
+			}
+		}
+		if(setup.isTlsEnabled()) {
+			builder.sslContext(getSslContextBuilder().build());
+		}
+		server = builder.build().start();
+		logger.info("Server started, listening on " + setup.getPort() + ", services " + services 
+				+ ", worker threads " + workerThreads + ", executor threads " + executorThreads);
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				// Use stderr here since the logger may have been reset by its JVM shutdown hook.
+				logger.info("*** shutting down gRPC server since JVM is shutting down");
+				UnifiedServer.this.stop();
+				logger.info("*** server shut down");
+			}
+		});
+	}
+	
+	private void stop() {
+		if (server != null) {
+			server.shutdown();
+			try {
+				server.awaitTermination(30, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if(executor != null) {
+			executor.shutdown();
+		}
+		MetricsEndpoint.stop();
+		if(workerGroup != null) {
+			workerGroup.shutdownGracefully();
+		}
+		if(bossGroup != null) {
+			bossGroup.shutdownGracefully();
+		}
+	}
+	
+	/**
+	 * Await termination on the main thread since the grpc library uses daemon threads.
+	 */
+	private void blockUntilShutdown() throws InterruptedException {
+		if (server != null) {
+			server.awaitTermination();
+		}
+	}
+	
+	/**
+	 * Main launches the server from the command line.
+	 * @throws Exception 
+	 */
+	public static void main(String[] args) throws Exception {
+		if(args == null || args.length == 0) {
+			throw new Exception("Arguments Must Be: [property file name]");
+		}
+		String setupFileName = args[0];
+		if(setupFileName == null || setupFileName.trim().length() == 0) {
+			throw new Exception("Setup File not found");
+		}
+		SetupLoader.loadSetup(setupFileName);
+		//	Validate load
+		SetupLoader.getInstance().validateLoad();
+		//	Connection pool
+		ConnectionPoolUtil.configure(SetupLoader.getInstance().getDatabase().getPool());
+		//	Count SQL statements by call
+		StatementMetrics.install();
+		final UnifiedServer server = new UnifiedServer();
+		server.start();
+		server.blockUntilShutdown();
+	}
+}
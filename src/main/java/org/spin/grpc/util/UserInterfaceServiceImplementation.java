@@ -14,13 +14,18 @@
  ************************************************************************************/
 package org.spin.grpc.util;
 
-import java.io.ByteArrayInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -69,6 +74,7 @@ import org.compiere.model.I_AD_Window;
 import org.compiere.model.I_CM_Chat;
 import org.compiere.model.MAttachment;
 import org.compiere.model.MChangeLog;
+import org.compiere.model.MClientInfo;
 import org.compiere.model.MChat;
 import org.compiere.model.MChatEntry;
 import org.compiere.model.MColumn;
@@ -97,12 +103,14 @@ import org.compiere.util.Env;
 import org.compiere.util.MimeType;
 import org.compiere.util.Msg;
 import org.compiere.util.Util;
+import org.spin.base.setup.SetupLoader;
 import org.spin.grpc.util.ChatEntry.ModeratorStatus;
 import org.spin.grpc.util.Condition.Operator;
 import org.spin.grpc.util.RollbackEntityRequest.EventType;
 import org.spin.grpc.util.UserInterfaceGrpc.UserInterfaceImplBase;
 import org.spin.model.I_AD_AttachmentReference;
 import org.spin.model.I_AD_ContextInfo;
+import org.spin.model.MADAttachmentReference;
 import org.spin.model.MADContextInfo;
 import org.spin.util.ASPUtil;
 import org.spin.util.AbstractExportFormat;
@@ -110,8 +118,10 @@ import org.spin.util.AttachmentUtil;
 import org.spin.util.ReportExportHandler;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 
 import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
 
 /**
@@ -136,6 +146,14 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 	private static CCache<String, String> referenceWhereClauseCache = new CCache<String, String>("Reference_WhereClause", 30, 0);	//	no time-out
 	/**	Window emulation	*/
 	private AtomicInteger windowNoEmulation = new AtomicInteger(1);
+	/**	Chunk size for stream report output	*/
+	private static final int REPORT_CHUNK_SIZE = 64 * 1024;
+	/**	Chunk size for stream resource	*/
+	private static final int RESOURCE_CHUNK_SIZE = 256 * 1024;
+	/**	Default maximum size of a uploaded resource (bytes)	*/
+	private static final long DEFAULT_MAX_UPLOAD_SIZE = 32L * 1024 * 1024;
+	/**	Maximum keys in a IN restriction of lookup	*/
+	private static final int MAX_LOOKUP_KEYS = 1000;
 	
 	@Override
 	public void rollbackEntity(RollbackEntityRequest request, StreamObserver<Entity> responseObserver) {
@@ -210,6 +228,32 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 		}
 	}
 	
+	@Override
+	public void listLookupItemsByKeys(ListLookupItemsByKeysRequest request, StreamObserver<ListLookupItemsByKeysResponse> responseObserver) {
+		try {
+			if(request == null) {
+				throw new AdempiereException("Lookup Request Null");
+			}
+			ContextManager.getContext(request.getClientRequest().getSessionUuid(), 
+					request.getClientRequest().getLanguage(), 
+					request.getClientRequest().getOrganizationUuid(), 
+					request.getClientRequest().getWarehouseUuid());
+			ListLookupItemsByKeysResponse.Builder builder = ListLookupItemsByKeysResponse.newBuilder();
+			for(LookupKeys lookupKeys : request.getLookupsList()) {
+				builder.addLookups(convertLookupItemsByKeys(lookupKeys));
+			}
+			responseObserver.onNext(builder.build());
+			responseObserver.onCompleted();
+		} catch (Exception e) {
+			log.severe(e.getLocalizedMessage());
+			responseObserver.onError(Status.INTERNAL
+					.withDescription(e.getLocalizedMessage())
+					.augmentDescription(e.getLocalizedMessage())
+					.withCause(e)
+					.asRuntimeException());
+		}
+	}
+	
 	@Override
 	public void listLookupItems(ListLookupItemsRequest request, StreamObserver<ListLookupItemsResponse> responseObserver) {
 		try {
@@ -486,6 +530,29 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 		}
 	}
 	
+	@Override
+	public void getReportOutputStream(GetReportOutputRequest request, StreamObserver<ReportOutputChunk> responseObserver) {
+		FlowControlledObserver<ReportOutputChunk> observer = new FlowControlledObserver<ReportOutputChunk>(responseObserver);
+		try {
+			if(request == null) {
+				throw new AdempiereException("Object Request Null");
+			}
+			ContextManager.getContext(request.getClientRequest().getSessionUuid(), 
+					request.getClientRequest().getLanguage(), 
+					request.getClientRequest().getOrganizationUuid(), 
+					request.getClientRequest().getWarehouseUuid());
+			streamReportOutput(request, observer);
+			observer.onCompleted();
+		} catch (Exception e) {
+			log.severe(e.getLocalizedMessage());
+			observer.onError(Status.INTERNAL
+					.withDescription(e.getLocalizedMessage())
+					.augmentDescription(e.getLocalizedMessage())
+					.withCause(e)
+					.asRuntimeException());
+		}
+	}
+	
 	@Override
 	public void createChatEntry(CreateChatEntryRequest request, StreamObserver<ChatEntry> responseObserver) {
 		try {
@@ -508,6 +575,7 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 	
 	@Override
 	public void getResource(GetResourceRequest request, StreamObserver<Resource> responseObserver) {
+		FlowControlledObserver<Resource> observer = new FlowControlledObserver<Resource>(responseObserver);
 		try {
 			if(request == null
 					|| Util.isEmpty(request.getResourceUuid())) {
@@ -519,10 +587,10 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 					request.getClientRequest().getOrganizationUuid(), 
 					request.getClientRequest().getWarehouseUuid());
 			//	Get resource
-			getResource(request.getResourceUuid(), responseObserver);
+			getResource(request.getResourceUuid(), request.getOffset(), request.getLength(), observer);
 		} catch (Exception e) {
 			log.severe(e.getLocalizedMessage());
-			responseObserver.onError(Status.INTERNAL
+			observer.onError(Status.INTERNAL
 					.withDescription(e.getLocalizedMessage())
 					.augmentDescription(e.getLocalizedMessage())
 					.withCause(e)
@@ -531,32 +599,200 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 	}
 	
 	/**
-	 * Get File from fileName
+	 * Get File from fileName: a file of local file system is read by range from a channel, else
+	 * the chunks wrap the data of file handler without copy it
 	 * @param resourceUuid
-	 * @param responseObserver
+	 * @param offset first byte to send
+	 * @param length bytes to send, 0 for send until end of file
+	 * @param observer
 	 * @throws Exception 
 	 */
-	private void getResource(String resourceUuid, StreamObserver<Resource> responseObserver) throws Exception {
+	private void getResource(String resourceUuid, long offset, long length, FlowControlledObserver<Resource> observer) throws Exception {
+		MADAttachmentReference reference = new Query(Env.getCtx(), I_AD_AttachmentReference.Table_Name, I_AD_AttachmentReference.COLUMNNAME_UUID + " = ?", null)
+				.setParameters(resourceUuid)
+				.setClient_ID()
+				.first();
+		File localFile = getLocalResourceFile(reference);
+		if(localFile != null) {
+			getResource(localFile, offset, length, observer);
+			return;
+		}
 		byte[] data = AttachmentUtil.getInstance()
 			.withClientId(Env.getAD_Client_ID(Env.getCtx()))
 			.withAttachmentReferenceId(RecordUtil.getIdFromUuid(I_AD_AttachmentReference.Table_Name, resourceUuid, null))
 			.getAttachment();
 		if(data == null) {
-			responseObserver.onCompleted();
+			observer.onCompleted();
 			return;
 		}
-		//	For all
-		int bufferSize = 256 * 1024;// 256k
-        byte[] buffer = new byte[bufferSize];
-        int length;
-        InputStream is = new ByteArrayInputStream(data);
-        while ((length = is.read(buffer, 0, bufferSize)) != -1) {
-          responseObserver.onNext(
-        		  Resource.newBuilder().setData(ByteString.copyFrom(buffer, 0, length)).build()
-          );
-        }
-        //	Completed
-        responseObserver.onCompleted();
+		//	Validate range
+		if(offset < 0
+				|| offset > data.length
+				|| length < 0) {
+			throw new AdempiereException("@Invalid@ @Range@ " + offset + " - " + length);
+		}
+		int end = data.length;
+		if(length > 0) {
+			end = (int) Math.min(data.length, offset + length);
+		}
+		for(int position = (int) offset; position < end; position += RESOURCE_CHUNK_SIZE) {
+			int chunkLength = Math.min(RESOURCE_CHUNK_SIZE, end - position);
+			if(!observer.onNext(Resource.newBuilder().setData(UnsafeByteOperations.unsafeWrap(data, position, chunkLength)).build())) {
+				return;
+			}
+		}
+		//	Completed
+		observer.onCompleted();
+	}
+	
+	/**
+	 * Send a range of local file, only a chunk is in memory
+	 * @param file
+	 * @param offset first byte to send
+	 * @param length bytes to send, 0 for send until end of file
+	 * @param observer
+	 * @throws Exception
+	 */
+	private void getResource(File file, long offset, long length, FlowControlledObserver<Resource> observer) throws Exception {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			//	Validate range
+			if(offset < 0
+					|| offset > size
+					|| length < 0) {
+				throw new AdempiereException("@Invalid@ @Range@ " + offset + " - " + length);
+			}
+			long end = size;
+			if(length > 0) {
+				end = Math.min(size, offset + length);
+			}
+			ByteBuffer buffer = ByteBuffer.allocate(RESOURCE_CHUNK_SIZE);
+			long position = offset;
+			while(position < end) {
+				buffer.clear();
+				buffer.limit((int) Math.min(RESOURCE_CHUNK_SIZE, end - position));
+				int read = channel.read(buffer, position);
+				if(read <= 0) {
+					break;
+				}
+				position += read;
+				buffer.flip();
+				if(!observer.onNext(Resource.newBuilder().setData(ByteString.copyFrom(buffer)).build())) {
+					return;
+				}
+			}
+		}
+		//	Completed
+		observer.onCompleted();
+	}
+	
+	/**
+	 * Get file of resource when the file handler store it in a local file system, the path is
+	 * defined by resource_path of server setup
+	 * @param reference
+	 * @return null if the path is not defined or the file is not found
+	 */
+	private File getLocalResourceFile(MADAttachmentReference reference) {
+		if(reference == null
+				|| SetupLoader.getInstance() == null
+				|| SetupLoader.getInstance().getServer() == null
+				|| Util.isEmpty(SetupLoader.getInstance().getServer().getResource_path())) {
+			return null;
+		}
+		String path = SetupLoader.getInstance().getServer().getResource_path()
+				.replace("{client_id}", String.valueOf(reference.getAD_Client_ID()))
+				.replace("{attachment_id}", String.valueOf(reference.getAD_Attachment_ID()))
+				.replace("{resource_uuid}", ValueUtil.validateNull(reference.getUUID()))
+				.replace("{file_name}", ValueUtil.validateNull(reference.getFileName()));
+		File file = new File(path);
+		if(!file.isFile()) {
+			return null;
+		}
+		//	Other layout of handler
+		if(reference.getFileSize() != null
+				&& reference.getFileSize().signum() > 0
+				&& reference.getFileSize().longValue() != file.length()) {
+			log.warning("Resource size is different of local file: " + file.getAbsolutePath());
+			return null;
+		}
+		return file;
+	}
+	
+	@Override
+	public StreamObserver<UploadResourceRequest> uploadResource(StreamObserver<ResourceReference> responseObserver) {
+		return new ResourceUploadObserver(responseObserver);
+	}
+	
+	/**
+	 * Get maximum size of a uploaded resource from server setup
+	 * @return
+	 */
+	private long getMaxUploadSize() {
+		if(SetupLoader.getInstance() == null
+				|| SetupLoader.getInstance().getServer() == null
+				|| SetupLoader.getInstance().getServer().getMax_upload_size() <= 0) {
+			return DEFAULT_MAX_UPLOAD_SIZE;
+		}
+		return SetupLoader.getInstance().getServer().getMax_upload_size();
+	}
+	
+	/**
+	 * Save uploaded file as attachment reference of record
+	 * @param definition first message of upload
+	 * @param file uploaded file
+	 * @param checksum SHA-256 of file
+	 * @return
+	 * @throws Exception
+	 */
+	private ResourceReference.Builder saveResource(UploadResourceRequest definition, File file, String checksum) throws Exception {
+		MTable table = MTable.get(Env.getCtx(), definition.getTableName());
+		if(table == null
+				|| table.getAD_Table_ID() == 0) {
+			throw new AdempiereException("@AD_Table_ID@ @NotFound@");
+		}
+		int recordId = definition.getRecordId();
+		if(recordId <= 0) {
+			recordId = RecordUtil.getIdFromUuid(table.getTableName(), definition.getRecordUuid(), null);
+		}
+		if(recordId <= 0) {
+			throw new AdempiereException("@Record_ID@ @NotFound@");
+		}
+		int clientId = Env.getAD_Client_ID(Env.getCtx());
+		if(!AttachmentUtil.getInstance().isValidForClient(clientId)) {
+			throw new AdempiereException("@FileHandler_ID@ @NotFound@");
+		}
+		MAttachment attachment = MAttachment.get(Env.getCtx(), table.getAD_Table_ID(), recordId);
+		if(attachment == null
+				|| attachment.getAD_Attachment_ID() <= 0) {
+			attachment = new MAttachment(Env.getCtx(), table.getAD_Table_ID(), recordId, null);
+			attachment.saveEx();
+		}
+		//	The file handler only receive the content as array
+		AttachmentUtil.getInstance()
+			.withClientId(clientId)
+			.withAttachmentId(attachment.getAD_Attachment_ID())
+			.withFileName(definition.getFileName())
+			.withData(Files.readAllBytes(file.toPath()))
+			.saveAttachment();
+		//	Get created reference: the last one with same file name
+		MADAttachmentReference reference = null;
+		for(MADAttachmentReference attachmentReference : MADAttachmentReference.getListByAttachmentId(Env.getCtx(), MClientInfo.get(Env.getCtx(), clientId).getFileHandler_ID(), attachment.getAD_Attachment_ID(), null)) {
+			if(definition.getFileName().equals(attachmentReference.getFileName())
+					&& (reference == null || attachmentReference.getAD_AttachmentReference_ID() > reference.getAD_AttachmentReference_ID())) {
+				reference = attachmentReference;
+			}
+		}
+		if(reference == null) {
+			throw new AdempiereException("@AD_AttachmentReference_ID@ @NotFound@");
+		}
+		if(!Util.isEmpty(definition.getDescription())
+				|| !Util.isEmpty(definition.getTextMsg())) {
+			reference.setDescription(definition.getDescription());
+			reference.setTextMsg(definition.getTextMsg());
+			reference.saveEx();
+		}
+		return ConvertUtil.convertResourceReference(reference)
+				.setChecksum(checksum);
 	}
 	
 	@Override
@@ -641,9 +877,76 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 	 * @param request
 	 * @return
 	 * @throws IOException 
-	 * @throws FileNotFoundException 
 	 */
-	private ReportOutput.Builder getReportOutput(GetReportOutputRequest request) throws FileNotFoundException, IOException {
+	private ReportOutput.Builder getReportOutput(GetReportOutputRequest request) throws IOException {
+		ReportOutputCache.CachedOutput cachedOutput = getCachedReportOutput(request);
+		if(cachedOutput == null) {
+			return ReportOutput.newBuilder();
+		}
+		try {
+			ReportOutput.Builder builder = getReportOutputMetadata(cachedOutput);
+			builder.setOutputStream(cachedOutput.getContent());
+			//	Return
+			return builder;
+		} finally {
+			cachedOutput.release();
+		}
+	}
+	
+	/**
+	 * Stream report output: metadata in first chunk and then the content of file by chunks,
+	 * the file is read with a channel then only a chunk is in memory
+	 * @param request
+	 * @param observer
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private void streamReportOutput(GetReportOutputRequest request, FlowControlledObserver<ReportOutputChunk> observer) throws IOException, InterruptedException {
+		ReportOutputCache.CachedOutput cachedOutput = getCachedReportOutput(request);
+		if(cachedOutput == null) {
+			throw new AdempiereException("@FileInvalid@");
+		}
+		try {
+			ReportOutput.Builder metadata = getReportOutputMetadata(cachedOutput);
+			if(!observer.onNext(ReportOutputChunk.newBuilder().setMetadata(metadata).build())) {
+				return;
+			}
+			try (FileChannel channel = FileChannel.open(cachedOutput.getFile().toPath(), StandardOpenOption.READ)) {
+				ByteBuffer buffer = ByteBuffer.allocate(REPORT_CHUNK_SIZE);
+				while(channel.read(buffer) > 0) {
+					buffer.flip();
+					ReportOutputChunk chunk = ReportOutputChunk.newBuilder()
+							.setData(ByteString.copyFrom(buffer))
+							.build();
+					if(!observer.onNext(chunk)) {
+						return;
+					}
+					buffer.clear();
+				}
+			}
+		} finally {
+			cachedOutput.release();
+		}
+	}
+	
+	/**
+	 * Get metadata of report output with header of current session
+	 * @param cachedOutput
+	 * @return
+	 */
+	private ReportOutput.Builder getReportOutputMetadata(ReportOutputCache.CachedOutput cachedOutput) {
+		ReportOutput.Builder builder = cachedOutput.getOutput().toBuilder();
+		String headerName = Msg.getMsg(Env.getCtx(), "Report") + ": " + builder.getName() + "  " + Env.getHeader(Env.getCtx(), 0);
+		builder.setHeaderName(ValueUtil.validateNull(headerName));
+		return builder;
+	}
+	
+	/**
+	 * Get report output from cache or create it, the output must be released after read it
+	 * @param request
+	 * @return null if the output is not created
+	 */
+	private ReportOutputCache.CachedOutput getCachedReportOutput(GetReportOutputRequest request) {
 		Criteria criteria = request.getCriteria();
 		if(Util.isEmpty(criteria.getTableName())) {
 			throw new AdempiereException("@TableName@ @NotFound@");
@@ -658,7 +961,6 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 			throw new AdempiereException("@AccessCannotReport@");
 		}
 		//	
-		ReportOutput.Builder builder = ReportOutput.newBuilder();
 		MQuery query = getReportQueryFromCriteria(criteria);
 		if(!Util.isEmpty(criteria.getWhereClause())) {
 			query.addRestriction(criteria.getWhereClause());
@@ -694,7 +996,28 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 		if(table.getAD_Table_ID() != printFormat.getAD_Table_ID()) {
 			table = MTable.get(Env.getCtx(), printFormat.getAD_Table_ID());
 		}
-		//	Run report engine
+		//	Get from cache or run report engine
+		String reportViewUuid = reportView == null? null: reportView.getUUID();
+		String cacheKey = ReportOutputCache.getKey(printFormat.getUUID(), reportViewUuid, query.getWhereClause(true), request.getIsSummary(), request.getReportType());
+		MPrintFormat reportPrintFormat = printFormat;
+		MReportView reportReportView = reportView;
+		MTable reportTable = table;
+		return ReportOutputCache.get(cacheKey, table.getTableName(),
+				() -> createReportOutput(request, reportPrintFormat, reportReportView, reportTable, query, printInformation));
+	}
+	
+	/**
+	 * Run report engine and create output for cache, the header of session is not included
+	 * @param request
+	 * @param printFormat
+	 * @param reportView
+	 * @param table
+	 * @param query
+	 * @param printInformation
+	 * @return null if the output is not created
+	 * @throws IOException
+	 */
+	private ReportOutputCache.CachedOutput createReportOutput(GetReportOutputRequest request, MPrintFormat printFormat, MReportView reportView, MTable table, MQuery query, PrintInfo printInformation) throws IOException {
 		ReportEngine reportEngine = new ReportEngine(Env.getCtx(), printFormat, query, printInformation);
 		//	Set report view
 		if(reportView != null) {
@@ -706,34 +1029,29 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 		reportEngine.setSummary(request.getIsSummary());
 		//	
 		File reportFile = createOutput(reportEngine, request.getReportType());
-		if(reportFile != null
-				&& reportFile.exists()) {
-			String validFileName = getValidName(reportFile.getName());
-			builder.setFileName(ValueUtil.validateNull(validFileName));
-			builder.setName(ValueUtil.validateNull(reportEngine.getName()));
-			builder.setMimeType(ValueUtil.validateNull(MimeType.getMimeType(validFileName)));
-			String headerName = Msg.getMsg(Env.getCtx(), "Report") + ": " + reportEngine.getName() + "  " + Env.getHeader(Env.getCtx(), 0);
-			builder.setHeaderName(ValueUtil.validateNull(headerName));
-			StringBuffer footerName = new StringBuffer ();
-			footerName.append(Msg.getMsg(Env.getCtx(), "DataCols")).append("=")
-				.append(reportEngine.getColumnCount())
-				.append(", ").append(Msg.getMsg(Env.getCtx(), "DataRows")).append("=")
-				.append(reportEngine.getRowCount());
-			builder.setFooterName(ValueUtil.validateNull(footerName.toString()));
-			//	Type
-			builder.setReportType(request.getReportType());
-			ByteString resultFile = ByteString.readFrom(new FileInputStream(reportFile));
-			if(request.getReportType().endsWith("html")
-					|| request.getReportType().endsWith("txt")) {
-				builder.setOutputBytes(resultFile);
-			}
+		if(reportFile == null
+				|| !reportFile.exists()) {
+			return null;
+		}
+		ReportOutput.Builder builder = ReportOutput.newBuilder();
+		String validFileName = getValidName(reportFile.getName());
+		builder.setFileName(ValueUtil.validateNull(validFileName));
+		builder.setName(ValueUtil.validateNull(reportEngine.getName()));
+		builder.setMimeType(ValueUtil.validateNull(MimeType.getMimeType(validFileName)));
+		StringBuffer footerName = new StringBuffer ();
+		footerName.append(Msg.getMsg(Env.getCtx(), "DataCols")).append("=")
+			.append(reportEngine.getColumnCount())
+			.append(", ").append(Msg.getMsg(Env.getCtx(), "DataRows")).append("=")
+			.append(reportEngine.getRowCount());
+		builder.setFooterName(ValueUtil.validateNull(footerName.toString()));
+		//	Type
+		builder.setReportType(request.getReportType());
+		if(reportView != null) {
 			builder.setReportViewUuid(ValueUtil.validateNull(reportView.getUUID()));
-			builder.setPrintFormatUuid(ValueUtil.validateNull(printFormat.getUUID()));
-			builder.setTableName(ValueUtil.validateNull(table.getTableName()));
-			builder.setOutputStream(resultFile);
 		}
-		//	Return
-		return builder;
+		builder.setPrintFormatUuid(ValueUtil.validateNull(printFormat.getUUID()));
+		builder.setTableName(ValueUtil.validateNull(table.getTableName()));
+		return new ReportOutputCache.CachedOutput(builder.build(), reportFile);
 	}
 	
 	/**
@@ -1348,14 +1666,12 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 	 * @return
 	 */
 	private int getLastChangeLogId(int sessionId, int tableId, int recordId, String eventType) {
-		return DB.getSQLValue(null, "SELECT AD_ChangeLog_ID "
+		return DB.getSQLValue(null, PaginationUtil.getQueryWithLimit("SELECT AD_ChangeLog_ID "
 				+ "FROM AD_ChangeLog "
 				+ "WHERE AD_Session_ID = ? "
 				+ "AND AD_Table_ID = ? "
 				+ "AND Record_ID = ? "
-				+ "AND EventChangeLog = ? "
-				+ "AND ROWNUM <= 1 "
-				+ "ORDER BY Updated DESC", sessionId, tableId, recordId, eventType);
+				+ "AND EventChangeLog = ?", "Updated DESC", 1, 0), sessionId, tableId, recordId, eventType);
 	}
 	
 	/**
@@ -1448,27 +1764,13 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 	 */
 	private LookupItem.Builder convertLookupItem(GetLookupItemRequest request) {
 		Criteria criteria = request.getCriteria();
-		String sql = criteria.getQuery();
 		List<Object> params = new ArrayList<>();
-		criteria.getValuesList().forEach(value -> params.add(ValueUtil.getObjectFromValue(value)));
-		//	For dynamic condition
-		String dynamicWhere = ValueUtil.getWhereClauseFromCriteria(criteria, params);
-		if(!Util.isEmpty(dynamicWhere)) {
-			int positionFrom = sql.lastIndexOf(" FROM ");
-			boolean hasWhereClause = sql.indexOf(" WHERE ", positionFrom) != -1;
-			//
-			int positionOrder = sql.lastIndexOf(" ORDER BY ");
-			if (positionOrder != -1) {
-				sql = sql.substring(0, positionOrder) 
-						+ (hasWhereClause ? " AND " : " WHERE ") 
-						+ dynamicWhere
-						+ sql.substring(positionOrder);
-			} else {			
-				sql += (hasWhereClause ? " AND " : " WHERE ") + dynamicWhere;
-			}
+		String sql = getLookupSQL(criteria, params, null);
+		String cacheKey = LookupCache.getKey("Item", sql, params);
+		LookupItem cachedItem = LookupCache.get(criteria.getTableName(), cacheKey);
+		if(cachedItem != null) {
+			return cachedItem.toBuilder();
 		}
-		sql = MRole.getDefault(Env.getCtx(), false).addAccessSQL(sql,
-				criteria.getTableName(), MRole.SQL_FULLYQUALIFIED, MRole.SQL_RO);
 		LookupItem.Builder builder = LookupItem.newBuilder();
 		PreparedStatement pstmt = null;
 		ResultSet rs = null;
@@ -1482,28 +1784,8 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 			//	Get from Query
 			rs = pstmt.executeQuery();
 			if (rs.next()) {
-				//	1 = Key Column
-				//	2 = Optional Value
-				//	3 = Display Value
-				ResultSetMetaData metaData = rs.getMetaData();
-				int keyValueType = metaData.getColumnType(1);
-				Object keyValue = null;
-				if(keyValueType == Types.VARCHAR
-						|| keyValueType == Types.NVARCHAR
-						|| keyValueType == Types.CHAR
-						|| keyValueType == Types.NCHAR) {
-					keyValue = rs.getString(2);
-				} else {
-					keyValue = rs.getInt(1);
-				}
-				String uuid = null;
-				//	Validate if exist UUID
-				int uuidIndex = getColumnIndex(metaData, I_AD_Element.COLUMNNAME_UUID);
-				if(uuidIndex != -1) {
-					uuid = rs.getString(uuidIndex);
-				}
-				//	
-				builder = convertObjectFromResult(keyValue, uuid, rs.getString(2), rs.getString(3));
+				builder = convertLookupItemFromResult(rs);
+				LookupCache.put(criteria.getTableName(), cacheKey, builder.build());
 			}
 		} catch (Exception e) {
 			log.severe(e.getLocalizedMessage());
@@ -1521,27 +1803,13 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 	 */
 	private ListLookupItemsResponse.Builder convertLookupItemsList(ListLookupItemsRequest request) {
 		Criteria criteria = request.getCriteria();
-		String sql = criteria.getQuery();
 		List<Object> params = new ArrayList<>();
-		criteria.getValuesList().forEach(value -> params.add(ValueUtil.getObjectFromValue(value)));
-		//	For dynamic condition
-		String dynamicWhere = ValueUtil.getWhereClauseFromCriteria(criteria, params);
-		if(!Util.isEmpty(dynamicWhere)) {
-			int positionFrom = sql.lastIndexOf(" FROM ");
-			boolean hasWhereClause = sql.indexOf(" WHERE ", positionFrom) != -1;
-			//
-			int positionOrder = sql.lastIndexOf(" ORDER BY ");
-			if (positionOrder != -1) {
-				sql = sql.substring(0, positionOrder) 
-						+ (hasWhereClause ? " AND " : " WHERE ") 
-						+ dynamicWhere
-						+ sql.substring(positionOrder);
-			} else {			
-				sql += (hasWhereClause ? " AND " : " WHERE ") + dynamicWhere;
-			}
+		String sql = getLookupSQL(criteria, params, null);
+		String cacheKey = LookupCache.getKey("List", sql, params);
+		ListLookupItemsResponse cachedList = LookupCache.get(criteria.getTableName(), cacheKey);
+		if(cachedList != null) {
+			return cachedList.toBuilder();
 		}
-		sql = MRole.getDefault(Env.getCtx(), false).addAccessSQL(sql,
-				criteria.getTableName(), MRole.SQL_FULLYQUALIFIED, MRole.SQL_RO);
 		ListLookupItemsResponse.Builder builder = ListLookupItemsResponse.newBuilder();
 		PreparedStatement pstmt = null;
 		ResultSet rs = null;
@@ -1556,43 +1824,180 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 			//	Get from Query
 			rs = pstmt.executeQuery();
 			while(rs.next()) {
-				//	1 = Key Column
-				//	2 = Optional Value
-				//	3 = Display Value
-				ResultSetMetaData metaData = rs.getMetaData();
-				int keyValueType = metaData.getColumnType(1);
-				Object keyValue = null;
-				if(keyValueType == Types.VARCHAR
-						|| keyValueType == Types.NVARCHAR
-						|| keyValueType == Types.CHAR
-						|| keyValueType == Types.NCHAR
-						|| keyValueType == Types.OTHER) {
-					keyValue = rs.getString(2);
-				} else {
-					keyValue = rs.getInt(1);
-				}
-				String uuid = null;
-				//	Validate if exist UUID
-				int uuidIndex = getColumnIndex(metaData, I_AD_Element.COLUMNNAME_UUID);
-				if(uuidIndex != -1) {
-					uuid = rs.getString(uuidIndex);
-				}
-				//	
-				LookupItem.Builder valueObject = convertObjectFromResult(keyValue, uuid, rs.getString(2), rs.getString(3));
+				LookupItem.Builder valueObject = convertLookupItemFromResult(rs);
 				builder.addRecords(valueObject.build());
 				recordCount++;
 			}
+			//	Set record counts
+			builder.setRecordCount(recordCount);
+			if(recordCount > 0) {
+				LookupCache.put(criteria.getTableName(), cacheKey, builder.build());
+			}
 		} catch (Exception e) {
 			log.severe(e.getLocalizedMessage());
 		} finally {
 			DB.close(rs, pstmt);
 		}
-		//	Set record counts
-		builder.setRecordCount(recordCount);
 		//	Return
 		return builder;
 	}
 	
+	/**
+	 * Resolve keys of a lookup: the cached keys are taken from lookup cache and the others
+	 * are read with a IN restriction by blocks of {@link #MAX_LOOKUP_KEYS} keys
+	 * @param lookupKeys
+	 * @return items in same order of keys, a key without record is omitted
+	 * @throws SQLException
+	 */
+	private LookupItemsByKeys.Builder convertLookupItemsByKeys(LookupKeys lookupKeys) throws SQLException {
+		Criteria criteria = lookupKeys.getCriteria();
+		String keyColumnName = lookupKeys.getKeyColumnName();
+		if(Util.isEmpty(keyColumnName)
+				|| !keyColumnName.matches("[A-Za-z_][A-Za-z0-9_.]*")) {
+			throw new AdempiereException("@KeyColumn@ @NotFound@");
+		}
+		List<Object> baseParams = new ArrayList<>();
+		String baseSQL = getLookupSQL(criteria, baseParams, null);
+		//	From cache
+		Map<String, LookupItem> items = new HashMap<>();
+		Map<String, String> cacheKeys = new LinkedHashMap<>();
+		List<Object> missingKeys = new ArrayList<>();
+		for(Value value : lookupKeys.getKeysList()) {
+			Object key = ValueUtil.getObjectFromValue(value);
+			if(key == null
+					|| cacheKeys.containsKey(String.valueOf(key))) {
+				continue;
+			}
+			String cacheKey = LookupCache.getKey("Key|" + keyColumnName + "|" + key, baseSQL, baseParams);
+			cacheKeys.put(String.valueOf(key), cacheKey);
+			LookupItem cachedItem = LookupCache.get(criteria.getTableName(), cacheKey);
+			if(cachedItem != null) {
+				items.put(String.valueOf(key), cachedItem);
+			} else {
+				missingKeys.add(key);
+			}
+		}
+		//	From database
+		for(int fromIndex = 0; fromIndex < missingKeys.size(); fromIndex += MAX_LOOKUP_KEYS) {
+			List<Object> keys = missingKeys.subList(fromIndex, Math.min(missingKeys.size(), fromIndex + MAX_LOOKUP_KEYS));
+			StringBuffer inClause = new StringBuffer(keyColumnName).append(" IN (");
+			for(int index = 0; index < keys.size(); index++) {
+				inClause.append(index == 0? "?": ", ?");
+			}
+			inClause.append(")");
+			List<Object> params = new ArrayList<>();
+			String sql = getLookupSQL(criteria, params, inClause.toString());
+			params.addAll(keys);
+			PreparedStatement pstmt = null;
+			ResultSet rs = null;
+			try {
+				pstmt = DB.prepareStatement(sql, null);
+				AtomicInteger parameterIndex = new AtomicInteger(1);
+				for(Object value : params) {
+					ValueUtil.setParameterFromObject(pstmt, value, parameterIndex.getAndIncrement());
+				}
+				rs = pstmt.executeQuery();
+				while(rs.next()) {
+					String key = String.valueOf(getLookupKeyFromResult(rs));
+					LookupItem item = convertLookupItemFromResult(rs).build();
+					items.put(key, item);
+					if(cacheKeys.containsKey(key)) {
+						LookupCache.put(criteria.getTableName(), cacheKeys.get(key), item);
+					}
+				}
+			} finally {
+				DB.close(rs, pstmt);
+			}
+		}
+		//	Same order of request
+		LookupItemsByKeys.Builder builder = LookupItemsByKeys.newBuilder();
+		cacheKeys.keySet().forEach(key -> {
+			LookupItem item = items.get(key);
+			if(item != null) {
+				builder.addRecords(item);
+			}
+		});
+		return builder;
+	}
+	
+	/**
+	 * Get SQL of lookup with conditions of criteria, additional where clause and role access
+	 * @param criteria
+	 * @param params
+	 * @param additionalWhereClause can be null
+	 * @return
+	 */
+	private String getLookupSQL(Criteria criteria, List<Object> params, String additionalWhereClause) {
+		String sql = criteria.getQuery();
+		criteria.getValuesList().forEach(value -> params.add(ValueUtil.getObjectFromValue(value)));
+		//	For dynamic condition
+		String dynamicWhere = ValueUtil.getWhereClauseFromCriteria(criteria, params);
+		if(!Util.isEmpty(additionalWhereClause)) {
+			if(Util.isEmpty(dynamicWhere)) {
+				dynamicWhere = additionalWhereClause;
+			} else {
+				dynamicWhere = dynamicWhere + " AND " + additionalWhereClause;
+			}
+		}
+		if(!Util.isEmpty(dynamicWhere)) {
+			int positionFrom = sql.lastIndexOf(" FROM ");
+			boolean hasWhereClause = sql.indexOf(" WHERE ", positionFrom) != -1;
+			//
+			int positionOrder = sql.lastIndexOf(" ORDER BY ");
+			if (positionOrder != -1) {
+				sql = sql.substring(0, positionOrder) 
+						+ (hasWhereClause ? " AND " : " WHERE ") 
+						+ dynamicWhere
+						+ sql.substring(positionOrder);
+			} else {			
+				sql += (hasWhereClause ? " AND " : " WHERE ") + dynamicWhere;
+			}
+		}
+		return MRole.getDefault(Env.getCtx(), false).addAccessSQL(sql,
+				criteria.getTableName(), MRole.SQL_FULLYQUALIFIED, MRole.SQL_RO);
+	}
+	
+	/**
+	 * Get key of current row of lookup query: the lookups of list and string keys
+	 * (SELECT NULL, Value, Name ...) have the key in second column
+	 * @param rs
+	 * @return
+	 * @throws SQLException
+	 */
+	private Object getLookupKeyFromResult(ResultSet rs) throws SQLException {
+		int keyValueType = rs.getMetaData().getColumnType(1);
+		if(keyValueType == Types.VARCHAR
+				|| keyValueType == Types.NVARCHAR
+				|| keyValueType == Types.CHAR
+				|| keyValueType == Types.NCHAR
+				|| keyValueType == Types.OTHER) {
+			return rs.getString(2);
+		}
+		return rs.getInt(1);
+	}
+	
+	/**
+	 * Convert current row of lookup query
+	 * @param rs
+	 * @return
+	 * @throws SQLException
+	 */
+	private LookupItem.Builder convertLookupItemFromResult(ResultSet rs) throws SQLException {
+		//	1 = Key Column
+		//	2 = Optional Value
+		//	3 = Display Value
+		ResultSetMetaData metaData = rs.getMetaData();
+		Object keyValue = getLookupKeyFromResult(rs);
+		String uuid = null;
+		//	Validate if exist UUID
+		int uuidIndex = getColumnIndex(metaData, I_AD_Element.COLUMNNAME_UUID);
+		if(uuidIndex != -1) {
+			uuid = rs.getString(uuidIndex);
+		}
+		//	
+		return convertObjectFromResult(keyValue, uuid, rs.getString(2), rs.getString(3));
+	}
+	
 	/**
 	 * Verify if exist a column
 	 * @param metaData
@@ -1824,48 +2229,25 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 		String parsedSQL = MRole.getDefault().addAccessSQL(sql.toString(),
 				tableNameAlias, MRole.SQL_FULLYQUALIFIED,
 				MRole.SQL_RO);
-		String orderByClause = criteria.getOrderByClause();
-		if(Util.isEmpty(orderByClause)) {
-			orderByClause = "";
-		} else {
-			orderByClause = " ORDER BY " + orderByClause;
-		}
 		//	Count records
-		int count = countRecords(parsedSQL, tableName, values);
+		int count = RecordCountUtil.getCountFromSQL(request.getCountMode(), parsedSQL, tableName, values);
 		String nexPageToken = null;
 		int pageMultiplier = page == 0? 1: page;
-		if(count > (RecordUtil.PAGE_SIZE * pageMultiplier)) {
-			nexPageToken = RecordUtil.getPagePrefix(request.getClientRequest().getSessionUuid()) + (page + 1);
-		}
-		//	Add Row Number
-		if(!Util.isEmpty(whereClause)) {
-			parsedSQL = parsedSQL + " AND ROWNUM >= " + page + " AND ROWNUM <= " + RecordUtil.PAGE_SIZE;
-		} else {
-			parsedSQL = parsedSQL + " WHERE ROWNUM >= " + page + " AND ROWNUM <= " + RecordUtil.PAGE_SIZE;	
-		}
-		//	Add Order By
-		parsedSQL = parsedSQL + orderByClause;
+		int offset = (pageMultiplier - 1) * RecordUtil.PAGE_SIZE;
+		//	Add Order By and page limit
+		parsedSQL = PaginationUtil.getQueryWithLimit(parsedSQL, criteria.getOrderByClause(), RecordUtil.PAGE_SIZE, offset);
 		//	Return
 		builder = convertBrowserResult(browser, parsedSQL, values);
+		builder.setRecordCount(count);
 		//	Validate page token
+		if(RecordCountUtil.hasNextPage(request.getCountMode(), count, RecordUtil.PAGE_SIZE * pageMultiplier, builder.getRecordsCount())) {
+			nexPageToken = RecordUtil.getPagePrefix(request.getClientRequest().getSessionUuid()) + (page + 1);
+		}
 		builder.setNextPageToken(ValueUtil.validateNull(nexPageToken));
 		//	Return
 		return builder;
 	}
 	
-	/**
-	 * Count records
-	 * @param sql
-	 * @param tableName
-	 * @param parameters
-	 * @return
-	 */
-	private int countRecords(String sql, String tableName, List<Object> parameters) {
-		int positionFrom = sql.lastIndexOf(" FROM " + tableName);
-		String queryCount = "SELECT COUNT(*) " + sql.substring(positionFrom, sql.length());
-		return DB.getSQLValueEx(null, queryCount, parameters);
-	}
-	
 	/**
 	 * Convert SQL to list values
 	 * @param pagePrefix
@@ -1880,11 +2262,6 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 		ListBrowserItemsResponse.Builder builder = ListBrowserItemsResponse.newBuilder();
 		long recordCount = 0;
 		try {
-			LinkedHashMap<String, MBrowseField> fieldsMap = new LinkedHashMap<>();
-			//	Add field to map
-			for(MBrowseField field: ASPUtil.getInstance().getBrowseFields(browser.getAD_Browse_ID())) {
-				fieldsMap.put(field.getAD_View_Column().getColumnName().toUpperCase(), field);
-			}
 			//	SELECT Key, Value, Name FROM ...
 			pstmt = DB.prepareStatement(sql, null);
 			AtomicInteger parameterIndex = new AtomicInteger(1);
@@ -1893,33 +2270,9 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 			} 
 			//	Get from Query
 			rs = pstmt.executeQuery();
+			RowMapper rowMapper = RowMapper.getBrowseMapper(browser, rs.getMetaData());
 			while(rs.next()) {
-				Entity.Builder valueObjectBuilder = Entity.newBuilder();
-				ResultSetMetaData metaData = rs.getMetaData();
-				for (int index = 1; index <= metaData.getColumnCount(); index++) {
-					try {
-						String columnName = metaData.getColumnName (index);
-						MBrowseField field = fieldsMap.get(columnName.toUpperCase());
-						Value.Builder valueBuilder = null;
-						//	Display Columns
-						if(field == null) {
-							String value = rs.getString(index);
-							if(!Util.isEmpty(value)) {
-								valueBuilder = ValueUtil.getValueFromString(value);
-								valueObjectBuilder.putValues(columnName, valueBuilder.build());
-							}
-							continue;
-						}
-						//	From field
-						String fieldColumnName = field.getAD_View_Column().getColumnName();
-						valueBuilder = ValueUtil.getValueFromReference(rs.getObject(index), field.getAD_Reference_ID());
-						if(!valueBuilder.getValueType().equals(Value.ValueType.UNRECOGNIZED)) {
-							valueObjectBuilder.putValues(fieldColumnName, valueBuilder.build());
-						}
-					} catch (Exception e) {
-						log.severe(e.getLocalizedMessage());
-					}
-				}
+				Entity.Builder valueObjectBuilder = rowMapper.map(rs);
 				//	
 				builder.addRecords(valueObjectBuilder.build());
 				recordCount++;
@@ -2235,4 +2588,151 @@ public class UserInterfaceServiceImplementation extends UserInterfaceImplBase {
 		//	
 		return builder;
 	}
+	
+	/**
+	 * Receiver of upload: the chunks are written to a temporary file while the SHA-256 is calculated,
+	 * then the memory is bounded to the size of a chunk until the upload is completed.
+	 * The first message must have the definition of attachment (table, record and file name)
+	 */
+	private class ResourceUploadObserver implements StreamObserver<UploadResourceRequest> {
+		
+		/**
+		 * Default constructor
+		 * @param responseObserver
+		 */
+		ResourceUploadObserver(StreamObserver<ResourceReference> responseObserver) {
+			this.responseObserver = responseObserver;
+		}
+		
+		/**	Response	*/
+		private StreamObserver<ResourceReference> responseObserver;
+		/**	Definition from first message	*/
+		private UploadResourceRequest definition;
+		/**	Temporary File	*/
+		private File file;
+		/**	Output of file	*/
+		private OutputStream output;
+		/**	Checksum	*/
+		private MessageDigest digest;
+		/**	Received bytes	*/
+		private long size = 0;
+		/**	Maximum bytes, the file handler load the file in memory for save it	*/
+		private long maxSize = 0;
+		/**	Failed	*/
+		private boolean isFailed = false;
+		
+		@Override
+		public void onNext(UploadResourceRequest request) {
+			if(isFailed) {
+				return;
+			}
+			try {
+				if(definition == null) {
+					ContextManager.getContext(request.getClientRequest().getSessionUuid(), 
+							request.getClientRequest().getLanguage(), 
+							request.getClientRequest().getOrganizationUuid(), 
+							request.getClientRequest().getWarehouseUuid());
+					if(Util.isEmpty(request.getFileName())) {
+						throw new AdempiereException("@FileName@ @NotFound@");
+					}
+					definition = request.toBuilder().clearData().build();
+					maxSize = getMaxUploadSize();
+					digest = MessageDigest.getInstance("SHA-256");
+					file = File.createTempFile("upload_" + System.currentTimeMillis(), ".tmp");
+					output = new DigestOutputStream(new BufferedOutputStream(new FileOutputStream(file)), digest);
+				}
+				size += request.getData().size();
+				if(size > maxSize) {
+					throw Status.RESOURCE_EXHAUSTED
+						.withDescription("Maximum upload size: " + maxSize)
+						.asRuntimeException();
+				}
+				request.getData().writeTo(output);
+			} catch (Exception e) {
+				onFailure(e);
+			}
+		}
+		
+		@Override
+		public void onError(Throwable throwable) {
+			log.warning(throwable.getLocalizedMessage());
+			isFailed = true;
+			deleteFile();
+		}
+		
+		@Override
+		public void onCompleted() {
+			if(isFailed) {
+				return;
+			}
+			try {
+				if(definition == null) {
+					throw new AdempiereException("Object Request Null");
+				}
+				output.close();
+				String checksum = getHexadecimal(digest.digest());
+				if(!Util.isEmpty(definition.getChecksum())
+						&& !definition.getChecksum().equalsIgnoreCase(checksum)) {
+					throw new AdempiereException("@Invalid@ Checksum " + checksum);
+				}
+				ResourceReference.Builder reference = saveResource(definition, file, checksum);
+				deleteFile();
+				responseObserver.onNext(reference.build());
+				responseObserver.onCompleted();
+			} catch (Exception e) {
+				onFailure(e);
+			}
+		}
+		
+		/**
+		 * Delete temporary file and send error
+		 * @param e
+		 */
+		private void onFailure(Exception e) {
+			log.severe(e.getLocalizedMessage());
+			isFailed = true;
+			deleteFile();
+			if(e instanceof StatusRuntimeException) {
+				responseObserver.onError(e);
+				return;
+			}
+			responseObserver.onError(Status.INTERNAL
+					.withDescription(e.getLocalizedMessage())
+					.augmentDescription(e.getLocalizedMessage())
+					.withCause(e)
+					.asRuntimeException());
+		}
+		
+		/**
+		 * Close output and delete temporary file
+		 */
+		private void deleteFile() {
+			try {
+				if(output != null) {
+					output.close();
+				}
+			} catch (IOException e) {
+				log.warning(e.getLocalizedMessage());
+			}
+			if(file != null
+					&& file.exists()
+					&& !file.delete()) {
+				log.warning("File not deleted: " + file.getAbsolutePath());
+			}
+			file = null;
+		}
+		
+		/**
+		 * Get bytes as hexadecimal
+		 * @param bytes
+		 * @return
+		 */
+		private String getHexadecimal(byte[] bytes) {
+			StringBuffer hexadecimal = new StringBuffer();
+			for(byte value : bytes) {
+				hexadecimal.append(String.format("%02x", value));
+			}
+			return hexadecimal.toString();
+		}
+	}
 }
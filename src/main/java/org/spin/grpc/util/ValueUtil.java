@@ -590,6 +590,14 @@ public class ValueUtil {
 				String colummName = criteria.getTableName() + "." + condition.getColumnName(); 
 				//	Open
 				whereClause.append("(");
+				//	Contained text from search index
+				if(condition.getOperatorValue() == Operator.LIKE_VALUE) {
+					String indexWhereClause = getWhereClauseFromIndex(criteria.getTableName(), condition.getColumnName(), condition.getValue(), params);
+					if(indexWhereClause != null) {
+						whereClause.append(indexWhereClause).append(")");
+						return;
+					}
+				}
 				if(condition.getOperatorValue() == Operator.LIKE_VALUE
 						|| condition.getOperatorValue() == Operator.NOT_LIKE_VALUE) {
 					colummName = "UPPER(" + colummName + ")";
@@ -627,5 +635,27 @@ public class ValueUtil {
 		//	Return where clause
 		return whereClause.toString();
 	}
+	
+	/**
+	 * Get where clause from search index for a LIKE condition of type %text%
+	 * @param tableName
+	 * @param columnName
+	 * @param value
+	 * @param params
+	 * @return null if the index can not be used
+	 */
+	private static String getWhereClauseFromIndex(String tableName, String columnName, Value value, List<Object> params) {
+		Object searchValue = getObjectFromValue(value);
+		if(!(searchValue instanceof String)) {
+			return null;
+		}
+		String text = (String) searchValue;
+		if(text.length() < 2
+				|| !text.startsWith("%")
+				|| !text.endsWith("%")) {
+			return null;
+		}
+		return TrigramIndex.getInstance().getWhereClause(tableName, text.substring(1, text.length() - 1), params, columnName);
+	}
 
 }